@@ -0,0 +1,4 @@
+package io.vindhya.githubmcp.tools;
+
+public record FileChange(String path, String content) {
+}
@@ -10,10 +10,21 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @Component
 @Slf4j
@@ -29,7 +40,14 @@ public class GithubTools {
     @Value("${app.tool.repoName}")
     private String repoName;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RepoMetadataCache repoMetadataCache;
+
+    // Blob uploads per commitFiles call running at once, below GitHub's secondary rate limits
+    @Value("${app.commit.max-parallel-uploads:4}")
+    private int maxParallelUploads;
+
+    // The JDK client supports PATCH, which moving a ref through the Git Data API needs
+    private final RestTemplate restTemplate = new RestTemplate(new JdkClientHttpRequestFactory());
 
     private HttpHeaders getHeaders() {
         HttpHeaders headers = new HttpHeaders();
@@ -45,30 +63,9 @@ public class GithubTools {
     ) {
         log.info("Creating branch {}", branchName);
 
-        String orgName = gitOwner;
-
-        // Get repo info to find default branch
-        String repoUrl = "https://api.github.com/repos/" + orgName + "/" + repoName;
-        HttpEntity<String> repoEntity = new HttpEntity<>(getHeaders());
-        ResponseEntity<Map<String, Object>> repoResponse = restTemplate.exchange(
-                repoUrl,
-                HttpMethod.GET,
-                repoEntity,
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-        );
-        String defaultBranch = (String) repoResponse.getBody().get("default_branch");
-
-        // Get default branch SHA
-        String refUrl = repoUrl + "/git/refs/heads/" + defaultBranch;
-        HttpEntity<String> getEntity = new HttpEntity<>(getHeaders());
-        ResponseEntity<Map<String, Object>> refResponse = restTemplate.exchange(
-                refUrl,
-                HttpMethod.GET,
-                getEntity,
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-        );
-        @SuppressWarnings("unchecked")
-        String sha = (String) ((Map<String, Object>) refResponse.getBody().get("object")).get("sha");
+        // Default branch and its head come from the metadata cache
+        String repoUrl = repoMetadataCache.repoUrl();
+        String sha = repoMetadataCache.branchSha(repoMetadataCache.defaultBranch());
 
         // Create branch
         String url = repoUrl + "/git/refs";
@@ -101,18 +98,8 @@ public class GithubTools {
     ) {
         log.info("Creating pull request for branch {}", branchName);
 
-        String orgName = gitOwner;
-
-        // Get repo info to find default branch
-        String repoUrl = "https://api.github.com/repos/" + orgName + "/" + repoName;
-        HttpEntity<String> repoEntity = new HttpEntity<>(getHeaders());
-        ResponseEntity<Map<String, Object>> repoResponse = restTemplate.exchange(
-                repoUrl,
-                HttpMethod.GET,
-                repoEntity,
-                new ParameterizedTypeReference<Map<String, Object>>() {}
-        );
-        String defaultBranch = (String) repoResponse.getBody().get("default_branch");
+        String repoUrl = repoMetadataCache.repoUrl();
+        String defaultBranch = repoMetadataCache.defaultBranch();
 
         // Create pull request
         String prUrl = repoUrl + "/pulls";
@@ -166,6 +153,8 @@ public class GithubTools {
                 new ParameterizedTypeReference<Map<String, Object>>() {}
         );
 
+        repoMetadataCache.invalidateBranch(repoMetadataCache.defaultBranch());
+
         return Map.of(
                 "message", "Pull request merged successfully",
                 "sha", (String) response.getBody().get("sha")
@@ -254,8 +243,197 @@ public class GithubTools {
                 new ParameterizedTypeReference<Map<String, Object>>() {}
         );
 
+        repoMetadataCache.invalidateBranch(branchName);
+
         return Map.of(
                 "message", "File updated successfully"
         );
     }
+
+    @McpTool(description = "Apply a change to a file in the GitHub repository and commit it, sending only the changed lines "
+            + "as a unified diff or as SEARCH/REPLACE blocks instead of the whole file")
+    public Map<String, Object> applyPatch(
+            @McpToolParam(description = "Path of the file in the repository")
+            String filePath,
+            @McpToolParam(description = "Branch name to update the file in")
+            String branchName,
+            @McpToolParam(description = "Commit message")
+            String commitMessage,
+            @McpToolParam(description = "Either a unified diff with @@ hunk headers and a few lines of context, or one or more blocks of "
+                    + "<<<<<<< SEARCH, the exact current lines, =======, the new lines, >>>>>>> REPLACE")
+            String patch
+    ) {
+        log.info("Applying patch to {} on branch {}", filePath, branchName);
+
+        String url = repoMetadataCache.repoUrl() + "/contents/" + filePath;
+        Map<String, Object> current = exchange(url + "?ref=" + branchName, HttpMethod.GET, null);
+        String content = new String(
+                Base64.getDecoder().decode(((String) current.get("content")).replaceAll("\\s", "")),
+                StandardCharsets.UTF_8);
+
+        // Conflicts go back to the model as a result it can act on, with nothing committed
+        String patched;
+        try {
+            patched = PatchApplier.apply(content, patch);
+        } catch (PatchApplier.PatchConflictException e) {
+            log.info("Rejected patch to {}: {}", filePath, e.getMessage());
+            return Map.of(
+                    "status", "error",
+                    "message", "Patch rejected, nothing was committed. Fetch the file again and resend the failing hunks",
+                    "conflicts", e.conflicts()
+            );
+        }
+
+        // The blob sha makes the update fail if the file changed since it was read
+        Map<String, Object> response = exchange(url, HttpMethod.PUT, Map.of(
+                "message", commitMessage,
+                "content", Base64.getEncoder().encodeToString(patched.getBytes(StandardCharsets.UTF_8)),
+                "branch", branchName,
+                "sha", current.get("sha")
+        ));
+        repoMetadataCache.invalidateBranch(branchName);
+
+        @SuppressWarnings("unchecked")
+        Object commitSha = ((Map<String, Object>) response.get("commit")).get("sha");
+        return Map.of(
+                "message", "Patch applied successfully",
+                "commitSha", String.valueOf(commitSha)
+        );
+    }
+
+    @McpTool(description = "Commit several files to a branch as a single commit. Prefer this over updateFileContent when a fix touches more than one file")
+    public Map<String, String> commitFiles(
+            @McpToolParam(description = "Branch name to commit the files to")
+            String branchName,
+            @McpToolParam(description = "Commit message")
+            String commitMessage,
+            @McpToolParam(description = "Files to create or replace, each with its path in the repository and its full new content")
+            List<FileChange> files
+    ) {
+        // Checked up front, so a bad call leaves no orphaned blobs or trees behind
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("files must name at least one file to commit");
+        }
+        for (FileChange file : files) {
+            if (file == null || file.path() == null || file.path().isBlank() || file.content() == null) {
+                throw new IllegalArgumentException("Every file needs a path and content: " + file);
+            }
+        }
+        log.info("Committing {} files to branch {}", files.size(), branchName);
+
+        String repoUrl = repoMetadataCache.repoUrl();
+        String parentSha = repoMetadataCache.branchSha(branchName);
+        @SuppressWarnings("unchecked")
+        String baseTreeSha = (String) ((Map<String, Object>) exchange(
+                repoUrl + "/git/commits/" + parentSha, HttpMethod.GET, null).get("tree")).get("sha");
+
+        // Existing files keep their mode, so executables such as gradlew stay executable
+        Map<String, String> modes = existingModes(repoUrl, baseTreeSha, files);
+
+        // Blobs are independent of each other, so they are uploaded concurrently
+        List<Map<String, Object>> tree = new ArrayList<>();
+        Semaphore uploads = new Semaphore(maxParallelUploads);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> blobShas = new ArrayList<>();
+            for (FileChange file : files) {
+                blobShas.add(executor.submit(() -> {
+                    uploads.acquire();
+                    try {
+                        return (String) exchange(repoUrl + "/git/blobs", HttpMethod.POST, Map.of(
+                                "content", Base64.getEncoder().encodeToString(file.content().getBytes(StandardCharsets.UTF_8)),
+                                "encoding", "base64"
+                        )).get("sha");
+                    } finally {
+                        uploads.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                tree.add(Map.of(
+                        "path", files.get(i).path(),
+                        "mode", modes.getOrDefault(files.get(i).path(), "100644"),
+                        "type", "blob",
+                        "sha", blobShas.get(i).get()
+                ));
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while uploading blobs", e);
+        }
+
+        String treeSha = (String) exchange(repoUrl + "/git/trees", HttpMethod.POST, Map.of(
+                "base_tree", baseTreeSha,
+                "tree", tree
+        )).get("sha");
+
+        String commitSha = (String) exchange(repoUrl + "/git/commits", HttpMethod.POST, Map.of(
+                "message", commitMessage,
+                "tree", treeSha,
+                "parents", List.of(parentSha)
+        )).get("sha");
+
+        // Not forced: fails instead of dropping commits pushed to the branch in the meantime
+        exchange(repoUrl + "/git/refs/heads/" + branchName, HttpMethod.PATCH, Map.of(
+                "sha", commitSha,
+                "force", false
+        ));
+        repoMetadataCache.invalidateBranch(branchName);
+
+        return Map.of(
+                "message", "Files committed successfully",
+                "commitSha", commitSha,
+                "filesChanged", String.valueOf(files.size())
+        );
+    }
+
+    // Modes of the changed paths that already exist in the base tree. One recursive listing covers
+    // most repositories; when GitHub truncates it, each file's directory is walked down to instead.
+    private Map<String, String> existingModes(String repoUrl, String baseTreeSha, List<FileChange> files) {
+        Map<String, Object> listing = exchange(repoUrl + "/git/trees/" + baseTreeSha + "?recursive=1", HttpMethod.GET, null);
+        Map<String, String> modes = new HashMap<>();
+        if (!Boolean.TRUE.equals(listing.get("truncated"))) {
+            treeEntries(listing).forEach(entry -> modes.put((String) entry.get("path"), (String) entry.get("mode")));
+            return modes;
+        }
+
+        Map<String, Map<String, Object>> trees = new HashMap<>();
+        for (FileChange file : files) {
+            String treeSha = baseTreeSha;
+            String[] segments = file.path().split("/");
+            for (int i = 0; i < segments.length && treeSha != null; i++) {
+                String name = segments[i];
+                Map<String, Object> directory = trees.computeIfAbsent(treeSha,
+                        sha -> exchange(repoUrl + "/git/trees/" + sha, HttpMethod.GET, null));
+                Map<String, Object> entry = treeEntries(directory).stream()
+                        .filter(candidate -> name.equals(candidate.get("path")))
+                        .findFirst()
+                        .orElse(null);
+                if (entry == null) {
+                    treeSha = null;
+                } else if (i == segments.length - 1) {
+                    modes.put(file.path(), (String) entry.get("mode"));
+                } else {
+                    treeSha = "tree".equals(entry.get("type")) ? (String) entry.get("sha") : null;
+                }
+            }
+        }
+        return modes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> treeEntries(Map<String, Object> tree) {
+        return (List<Map<String, Object>>) tree.getOrDefault("tree", List.of());
+    }
+
+    private Map<String, Object> exchange(String url, HttpMethod method, Map<String, Object> body) {
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                url,
+                method,
+                new HttpEntity<>(body, getHeaders()),
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+        );
+        return response.getBody();
+    }
 }
@@ -0,0 +1,276 @@
+package io.vindhya.githubmcp.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Applies a unified diff, or SEARCH/REPLACE blocks, to a file's current content. A patch is
+// applied completely or not at all: every hunk that doesn't match is reported in the exception.
+final class PatchApplier {
+
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+\\d+(?:,(\\d+))? @@.*");
+
+    private static final String SEARCH = "<<<<<<< SEARCH";
+
+    private static final String DIVIDER = "=======";
+
+    private static final String REPLACE = ">>>>>>> REPLACE";
+
+    private PatchApplier() {
+    }
+
+    static String apply(String content, String patch) {
+        if (patch.contains(SEARCH)) {
+            return applySearchReplace(content, patch);
+        }
+        if (patch.lines().anyMatch(line -> HUNK_HEADER.matcher(line).matches())) {
+            return applyUnifiedDiff(content, patch);
+        }
+        throw new PatchConflictException(List.of(
+                "Patch is neither a unified diff with @@ hunk headers nor " + SEARCH + "/" + REPLACE + " blocks"));
+    }
+
+    private static String applySearchReplace(String content, String patch) {
+        String separator = separator(content);
+        List<String> lines = lines(patch);
+        List<String> conflicts = new ArrayList<>();
+        String patched = normalize(content);
+
+        int hunk = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (!lines.get(i).strip().equals(SEARCH)) {
+                continue;
+            }
+            hunk++;
+            int divider = indexOf(lines, DIVIDER, i + 1);
+            int end = divider < 0 ? -1 : indexOf(lines, REPLACE, divider + 1);
+            if (end < 0) {
+                conflicts.add("Block " + hunk + " is missing its " + DIVIDER + " or " + REPLACE + " line");
+                break;
+            }
+            String search = String.join("\n", lines.subList(i + 1, divider));
+            String replace = String.join("\n", lines.subList(divider + 1, end));
+            i = end;
+
+            int at = patched.indexOf(search);
+            if (search.isEmpty() || at < 0) {
+                conflicts.add("Block " + hunk + ": search text not found in the current file: " + preview(search));
+            } else if (patched.indexOf(search, at + 1) >= 0) {
+                conflicts.add("Block " + hunk + ": search text matches more than one place, include more surrounding lines: "
+                        + preview(search));
+            } else {
+                patched = patched.substring(0, at) + replace + patched.substring(at + search.length());
+            }
+        }
+        if (hunk == 0) {
+            conflicts.add("No " + SEARCH + " blocks found");
+        }
+        if (!conflicts.isEmpty()) {
+            throw new PatchConflictException(conflicts);
+        }
+        return patched.replace("\n", separator);
+    }
+
+    // Hunks are matched on their context and removed lines. When the file has moved since the diff
+    // was made, the nearest exact match to the stated line is used, as patch(1) does without fuzz.
+    private static String applyUnifiedDiff(String content, String patch) {
+        String separator = separator(content);
+        List<String> file = lines(normalize(content));
+        List<String> conflicts = new ArrayList<>();
+        List<Hunk> hunks = hunks(patch, conflicts);
+
+        List<Placement> placements = new ArrayList<>();
+        for (Hunk hunk : hunks) {
+            int at = locate(file, hunk);
+            if (at < 0) {
+                conflicts.add("Hunk " + hunk.header + " does not match the current file, expected: "
+                        + preview(String.join("\n", hunk.before)));
+            } else {
+                placements.add(new Placement(at, hunk));
+            }
+        }
+        if (hunks.isEmpty() && conflicts.isEmpty()) {
+            conflicts.add("No hunks found");
+        }
+        placements.sort(Comparator.comparingInt(Placement::at));
+        for (int i = 1; i < placements.size(); i++) {
+            Placement previous = placements.get(i - 1);
+            if (previous.at() + previous.hunk().before.size() > placements.get(i).at()) {
+                conflicts.add("Hunk " + placements.get(i).hunk().header + " overlaps the hunk before it");
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new PatchConflictException(conflicts);
+        }
+
+        // Applied bottom up so the positions of the hunks above stay valid
+        for (int i = placements.size() - 1; i >= 0; i--) {
+            Placement placement = placements.get(i);
+            List<String> region = file.subList(placement.at(), placement.at() + placement.hunk().before.size());
+            region.clear();
+            region.addAll(placement.hunk().after);
+        }
+        return String.join(separator, file);
+    }
+
+    // Each hunk body must hold exactly the old and new line counts of its header; anything else
+    // means the diff was cut short or edited by hand, and it is rejected rather than guessed at
+    private static List<Hunk> hunks(String patch, List<String> conflicts) {
+        List<Hunk> hunks = new ArrayList<>();
+        Hunk hunk = null;
+        int fileHeaders = 0;
+        // lines() drops the patch's own final newline, which would otherwise read as a blank context line
+        for (String line : patch.lines().toList()) {
+            Matcher header = HUNK_HEADER.matcher(line);
+            if (header.matches()) {
+                checkComplete(hunk, conflicts);
+                hunk = new Hunk(line, Integer.parseInt(header.group(1)), count(header.group(2)), count(header.group(3)));
+                hunks.add(hunk);
+            } else if ((hunk == null || hunk.isComplete()) && line.startsWith("+++ ")) {
+                // Each file in a diff opens with its own ---/+++ pair
+                fileHeaders++;
+            } else if (hunk == null || line.startsWith("\\")) {
+                // File headers before the first hunk, and "\ No newline at end of file"
+            } else if (hunk.isComplete()) {
+                if (line.startsWith("+") && !line.startsWith("+++ ") || line.startsWith("-") && !line.startsWith("--- ")
+                        || line.startsWith(" ")) {
+                    conflicts.add("Hunk " + hunk.header + " has more lines than its header counts");
+                    hunk = null;
+                }
+            } else if (line.startsWith("+")) {
+                hunk.after.add(line.substring(1));
+            } else if (line.startsWith("-")) {
+                hunk.before.add(line.substring(1));
+            } else if (line.startsWith(" ") || line.isEmpty()) {
+                // Some tools strip the leading space from blank context lines
+                String context = line.isEmpty() ? "" : line.substring(1);
+                hunk.before.add(context);
+                hunk.after.add(context);
+            } else {
+                checkComplete(hunk, conflicts);
+                hunk = null;
+            }
+        }
+        checkComplete(hunk, conflicts);
+        // The patch is applied to the one file the tool was given, so hunks for others can't be placed
+        if (fileHeaders > 1) {
+            throw new PatchConflictException(List.of(
+                    "Patch changes " + fileHeaders + " files, send a separate patch for each file"));
+        }
+        return hunks;
+    }
+
+    private static void checkComplete(Hunk hunk, List<String> conflicts) {
+        if (hunk != null && !hunk.isComplete()) {
+            conflicts.add("Hunk " + hunk.header + " does not match its header: it counts " + hunk.oldCount + " old and "
+                    + hunk.newCount + " new lines, its body has " + hunk.before.size() + " and " + hunk.after.size());
+        }
+    }
+
+    // An omitted count means one line
+    private static int count(String group) {
+        return group == null ? 1 : Integer.parseInt(group);
+    }
+
+    private static int locate(List<String> file, Hunk hunk) {
+        // A pure insertion (-N,0) goes after line N; any other hunk starts at line N
+        if (hunk.before.isEmpty()) {
+            return Math.min(hunk.oldStart, file.size());
+        }
+        int stated = Math.max(0, hunk.oldStart - 1);
+        for (int offset = 0; offset <= file.size(); offset++) {
+            if (matches(file, hunk.before, stated - offset)) {
+                return stated - offset;
+            }
+            if (offset > 0 && matches(file, hunk.before, stated + offset)) {
+                return stated + offset;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(List<String> file, List<String> expected, int at) {
+        if (at < 0 || at + expected.size() > file.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!file.get(at + i).stripTrailing().equals(expected.get(i).stripTrailing())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(List<String> lines, String marker, int from) {
+        for (int i = from; i < lines.size(); i++) {
+            if (lines.get(i).strip().equals(marker)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String separator(String content) {
+        return content.contains("\r\n") ? "\r\n" : "\n";
+    }
+
+    private static String normalize(String text) {
+        return text.replace("\r\n", "\n");
+    }
+
+    // Keeps a trailing empty element, so a final newline survives the split and join
+    private static List<String> lines(String text) {
+        return new ArrayList<>(Arrays.asList(normalize(text).split("\n", -1)));
+    }
+
+    private static String preview(String text) {
+        String firstLines = text.lines().limit(3).reduce((a, b) -> a + "\n" + b).orElse("");
+        return "\"" + firstLines + (text.lines().count() > 3 ? "\n..." : "") + "\"";
+    }
+
+    private record Placement(int at, Hunk hunk) {
+    }
+
+    private static final class Hunk {
+
+        private final String header;
+
+        private final int oldStart;
+
+        private final int oldCount;
+
+        private final int newCount;
+
+        private final List<String> before = new ArrayList<>();
+
+        private final List<String> after = new ArrayList<>();
+
+        private Hunk(String header, int oldStart, int oldCount, int newCount) {
+            this.header = header;
+            this.oldStart = oldStart;
+            this.oldCount = oldCount;
+            this.newCount = newCount;
+        }
+
+        private boolean isComplete() {
+            return before.size() == oldCount && after.size() == newCount;
+        }
+    }
+
+    static final class PatchConflictException extends RuntimeException {
+
+        private final List<String> conflicts;
+
+        PatchConflictException(List<String> conflicts) {
+            super(String.join("; ", conflicts));
+            this.conflicts = List.copyOf(conflicts);
+        }
+
+        List<String> conflicts() {
+            return conflicts;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.vindhya.githubmcp.tools;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Caches the repository metadata and branch refs that every hotfix flow reads. Fresh entries
+// are served without a request; stale ones are revalidated with If-None-Match, and GitHub's 304
+// replies don't count against the rate limit.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RepoMetadataCache {
+
+    private static final String API = "https://api.github.com/repos/";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${github.pat}")
+    private String gitToken;
+
+    @Value("${github.userId}")
+    private String gitOwner;
+
+    @Value("${app.tool.repoName}")
+    private String repoName;
+
+    // Repository settings such as the default branch rarely change
+    @Value("${app.cache.repo-ttl-seconds:600}")
+    private long repoTtlSeconds;
+
+    // Refs move with every push, so by default they are revalidated on each read
+    @Value("${app.cache.ref-ttl-seconds:0}")
+    private long refTtlSeconds;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public String repoUrl() {
+        return API + gitOwner + "/" + repoName;
+    }
+
+    public String defaultBranch() {
+        return (String) get("repo", repoUrl(), Duration.ofSeconds(repoTtlSeconds)).get("default_branch");
+    }
+
+    @SuppressWarnings("unchecked")
+    public String branchSha(String branchName) {
+        Map<String, Object> ref = get("ref", refUrl(branchName), Duration.ofSeconds(refTtlSeconds));
+        return (String) ((Map<String, Object>) ref.get("object")).get("sha");
+    }
+
+    // For refs this service moved itself, so the next read doesn't serve the old commit
+    public void invalidateBranch(String branchName) {
+        entries.remove(refUrl(branchName));
+    }
+
+    private String refUrl(String branchName) {
+        return repoUrl() + "/git/refs/heads/" + branchName;
+    }
+
+    private Map<String, Object> get(String kind, String url, Duration ttl) {
+        Entry cached = entries.get(url);
+        if (cached != null && cached.fetchedAt().plus(ttl).isAfter(Instant.now())) {
+            count(kind, "hit");
+            return cached.body();
+        }
+
+        HttpHeaders headers = headers();
+        if (cached != null && cached.etag() != null) {
+            headers.setIfNoneMatch(cached.etag());
+        }
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                url,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+        );
+
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            count(kind, "revalidated");
+            entries.put(url, new Entry(cached.etag(), cached.body(), Instant.now()));
+            return cached.body();
+        }
+        count(kind, "miss");
+        entries.put(url, new Entry(response.getHeaders().getETag(), response.getBody(), Instant.now()));
+        return response.getBody();
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "token " + gitToken);
+        headers.set("Accept", "application/vnd.github.v3+json");
+        return headers;
+    }
+
+    private void count(String kind, String outcome) {
+        log.debug("Metadata cache {} for {}", outcome, kind);
+        meterRegistry.counter("githubmcp.metadata.cache", "kind", kind, "outcome", outcome).increment();
+    }
+
+    private record Entry(String etag, Map<String, Object> body, Instant fetchedAt) {
+    }
+}
@@ -0,0 +1,246 @@
+package io.vindhya.githubmcp.tools;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatchApplierTest {
+
+    private static final String FILE = "a\nb\nc\nd\ne\nf\n";
+
+    @Test
+    void appliesUnifiedDiff() {
+        String patch = """
+                --- a/x
+                +++ b/x
+                @@ -2,3 +2,3 @@
+                 b
+                -c
+                +C
+                 d
+                @@ -5,2 +5,3 @@
+                 e
+                +E2
+                 f
+                """;
+
+        assertEquals("a\nb\nC\nd\ne\nE2\nf\n", PatchApplier.apply(FILE, patch));
+    }
+
+    @Test
+    void appliesHunkAtNearestMatchWhenLinesDrifted() {
+        String patch = """
+                @@ -2,3 +2,3 @@
+                 b
+                -c
+                +C
+                 d
+                """;
+
+        assertEquals("new\nlines\na\nb\nC\nd\ne\nf\n", PatchApplier.apply("new\nlines\n" + FILE, patch));
+        assertEquals("b\nC\nd\ne\nf\n", PatchApplier.apply("b\nc\nd\ne\nf\n", patch));
+    }
+
+    @Test
+    void insertsPureInsertionHunkAfterStatedLine() {
+        String patch = """
+                @@ -2,0 +3,2 @@
+                +x
+                +y
+                """;
+
+        assertEquals("a\nb\nx\ny\nc\nd\ne\nf\n", PatchApplier.apply(FILE, patch));
+    }
+
+    @Test
+    void insertsAtStartOfFileForLineZero() {
+        String patch = """
+                @@ -0,0 +1 @@
+                +first
+                """;
+
+        assertEquals("first\na\nb\n", PatchApplier.apply("a\nb\n", patch));
+    }
+
+    @Test
+    void keepsCrlfLineEndings() {
+        String patch = """
+                @@ -1,2 +1,2 @@
+                 a
+                -b
+                +B
+                """;
+
+        assertEquals("a\r\nB\r\nc\r\n", PatchApplier.apply("a\r\nb\r\nc\r\n", patch));
+        assertEquals("x = 1;\r\ny = 3;\r\n", PatchApplier.apply("x = 1;\r\ny = 2;\r\n", """
+                <<<<<<< SEARCH
+                y = 2;
+                =======
+                y = 3;
+                >>>>>>> REPLACE
+                """));
+    }
+
+    @Test
+    void keepsMissingFinalNewline() {
+        String patch = """
+                @@ -1,2 +1,2 @@
+                 a
+                -b
+                \\ No newline at end of file
+                +B
+                \\ No newline at end of file
+                """;
+
+        assertEquals("a\nB", PatchApplier.apply("a\nb", patch));
+    }
+
+    @Test
+    void rejectsHunkThatDoesNotMatch() {
+        String patch = """
+                @@ -2,3 +2,3 @@
+                 b
+                -x
+                +C
+                 d
+                """;
+
+        PatchApplier.PatchConflictException conflict =
+                assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply(FILE, patch));
+        assertTrue(conflict.getMessage().contains("does not match the current file"));
+    }
+
+    @Test
+    void rejectsTruncatedHunk() {
+        String patch = """
+                @@ -2,3 +2,3 @@
+                 b
+                -c
+                +C
+                """;
+
+        PatchApplier.PatchConflictException conflict =
+                assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply(FILE, patch));
+        assertTrue(conflict.getMessage().contains("does not match its header"));
+    }
+
+    @Test
+    void rejectsHunkLongerThanItsHeader() {
+        String patch = """
+                @@ -2,1 +2,1 @@
+                -b
+                +B
+                +extra
+                """;
+
+        PatchApplier.PatchConflictException conflict =
+                assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply(FILE, patch));
+        assertTrue(conflict.getMessage().contains("more lines than its header"));
+    }
+
+    @Test
+    void rejectsOverlappingHunks() {
+        String patch = """
+                @@ -2,3 +2,3 @@
+                 b
+                -c
+                +C
+                 d
+                @@ -3,2 +3,2 @@
+                 c
+                -d
+                +D
+                """;
+
+        PatchApplier.PatchConflictException conflict =
+                assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply(FILE, patch));
+        assertTrue(conflict.getMessage().contains("overlaps"));
+    }
+
+    @Test
+    void rejectsDiffForMoreThanOneFile() {
+        String patch = """
+                diff --git a/x b/x
+                --- a/x
+                +++ b/x
+                @@ -2,3 +2,3 @@
+                 b
+                -c
+                +C
+                 d
+                diff --git a/y b/y
+                --- a/y
+                +++ b/y
+                @@ -5,2 +5,2 @@
+                 e
+                -f
+                +F
+                """;
+
+        PatchApplier.PatchConflictException conflict =
+                assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply(FILE, patch));
+        assertTrue(conflict.getMessage().contains("2 files"));
+    }
+
+    @Test
+    void appliesSearchReplaceBlocks() {
+        String patch = """
+                <<<<<<< SEARCH
+                b
+                c
+                =======
+                B
+                >>>>>>> REPLACE
+                <<<<<<< SEARCH
+                f
+                =======
+                F
+                >>>>>>> REPLACE
+                """;
+
+        assertEquals("a\nB\nd\ne\nF\n", PatchApplier.apply(FILE, patch));
+    }
+
+    @Test
+    void rejectsAmbiguousSearchBlock() {
+        String patch = """
+                <<<<<<< SEARCH
+                x
+                =======
+                y
+                >>>>>>> REPLACE
+                """;
+
+        PatchApplier.PatchConflictException conflict =
+                assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply("x\nx\n", patch));
+        assertTrue(conflict.getMessage().contains("more than one place"));
+    }
+
+    @Test
+    void rejectsMissingSearchBlockWithoutApplyingOthers() {
+        String patch = """
+                <<<<<<< SEARCH
+                a
+                =======
+                A
+                >>>>>>> REPLACE
+                <<<<<<< SEARCH
+                missing
+                =======
+                y
+                >>>>>>> REPLACE
+                """;
+
+        PatchApplier.PatchConflictException conflict =
+                assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply(FILE, patch));
+        assertEquals(1, conflict.conflicts().size());
+        assertTrue(conflict.conflicts().get(0).startsWith("Block 2: search text not found"));
+    }
+
+    @Test
+    void rejectsUnrecognizedPatch() {
+        assertThrows(PatchApplier.PatchConflictException.class, () -> PatchApplier.apply(FILE, "replace c with C"));
+    }
+}
@@ -1,12 +1,20 @@
 
 package com.sentries.SentinelX.chat;
 
+import io.reactivex.rxjava3.disposables.Disposable;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("api/v1/chat")
@@ -15,9 +23,38 @@ public class ChatController {
 
     private final ChatService chatService;
 
+    @Value("${sentinelx.chat.stream-timeout-minutes:15}")
+    private long streamTimeoutMinutes;
+
     @PostMapping
     public ResponseEntity<ChatResponse> askQuestion(@RequestBody ChatRequest request) {
         return ResponseEntity.ok(new ChatResponse(request.question(), chatService.converse(request)));
     }
 
-}
\ No newline at end of file
+    @PostMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQuestion(@RequestBody ChatRequest request) {
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(streamTimeoutMinutes));
+
+        Disposable subscription = chatService.stream(request).subscribe(
+                chatEvent -> {
+                    try {
+                        emitter.send(SseEmitter.event().name(chatEvent.type()).data(chatEvent));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                emitter::completeWithError,
+                emitter::complete
+        );
+
+        // Stop the agent run if the client goes away or the stream times out. Disposing a
+        // subscription that already finished does nothing.
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(subscription::dispose);
+        emitter.onError(error -> subscription.dispose());
+
+        return emitter;
+    }
+
+}
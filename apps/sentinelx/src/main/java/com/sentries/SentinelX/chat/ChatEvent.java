@@ -0,0 +1,49 @@
+package com.sentries.SentinelX.chat;
+
+import com.google.adk.events.Event;
+import com.google.genai.types.Content;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public record ChatEvent(String type, String author, String text, String tool, Map<String, Object> payload) {
+
+    public static final String TEXT = "text";
+
+    public static final String TOOL_CALL = "tool_call";
+
+    public static final String TOOL_RESULT = "tool_result";
+
+    public static List<ChatEvent> from(Event event) {
+        List<ChatEvent> chatEvents = new ArrayList<>();
+
+        event.functionCalls().forEach(call -> chatEvents.add(new ChatEvent(
+                TOOL_CALL, event.author(), null, call.name().orElse(null), call.args().orElse(Map.of()))));
+
+        event.functionResponses().forEach(response -> chatEvents.add(new ChatEvent(
+                TOOL_RESULT, event.author(), null, response.name().orElse(null), response.response().orElse(Map.of()))));
+
+        String text = event.content().map(ChatEvent::text).orElse("");
+        if (!text.isEmpty()) {
+            chatEvents.add(new ChatEvent(TEXT, event.author(), text, null, null));
+        }
+
+        return chatEvents;
+    }
+
+    // The text parts of a message joined together, without any function calls or responses
+    public static String text(Content content) {
+        return content.parts()
+                .map(parts -> parts.stream()
+                        .flatMap(part -> part.text().stream())
+                        .collect(Collectors.joining()))
+                .orElse("");
+    }
+
+    // What the event adds to the session history, tool arguments and results included
+    public long chars() {
+        return (text == null ? 0 : text.length()) + (payload == null ? 0 : String.valueOf(payload).length());
+    }
+}
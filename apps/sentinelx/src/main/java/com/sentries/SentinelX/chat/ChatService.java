@@ -10,20 +10,50 @@ import com.google.adk.tools.mcp.McpToolset;
 import com.google.adk.tools.mcp.StreamableHttpServerParameters;
 import com.google.genai.types.Content;
 import com.google.genai.types.Part;
+import com.sentries.SentinelX.config.MonitoredService;
+import com.sentries.SentinelX.config.ServiceRegistry;
+import com.sentries.SentinelX.execution.ExecutionMode;
+import com.sentries.SentinelX.incident.StackTraceCompactor;
+import com.sentries.SentinelX.metrics.AgentMetrics;
+import com.sentries.SentinelX.notification.HotfixNotifier;
+import com.sentries.SentinelX.replay.ReplayHarness;
+import com.sentries.SentinelX.triage.Triage;
+import com.sentries.SentinelX.triage.TriageService;
 import io.reactivex.rxjava3.core.Flowable;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ChatService {
 
+    private final AgentMetrics agentMetrics;
+
+    private final ReplayHarness replayHarness;
+
+    private final StackTraceCompactor stackTraceCompactor;
+
+    private final HotfixNotifier hotfixNotifier;
+
+    private final ExecutionMode executionMode;
+
+    private final ServiceRegistry serviceRegistry;
+
+    private final ModelFactory modelFactory;
+
+    private final TriageService triageService;
+
     @Value("${github.mcp.server.url}")
     private String githubMcpServerUrl;
 
@@ -33,19 +63,44 @@ public class ChatService {
     @Value("${jira.mcp.server.url}")
     private String jiraMcpServerUrl;
 
+    @Value("${sentinelx.models.hotfix:gemini-2.5-flash}")
+    private String model;
+
+    @Value("${sentinelx.sessions.max-size:1000}")
+    private int maxSessions;
+
+    @Value("${sentinelx.sessions.idle-timeout-minutes:30}")
+    private long sessionIdleTimeoutMinutes;
+
+    @Value("${sentinelx.sessions.max-chars-per-session:200000}")
+    private long maxCharsPerSession;
+
     private static String NAME = "SentinelX-agent";
 
+    private static final String TRIAGE = "SentinelX-triage";
+
+
     public BaseAgent ROOT_AGENT;
 
+    private InMemoryRunner runner;
+
+    private SessionRegistry sessionRegistry;
+
     @PostConstruct
     public void init() {
         ROOT_AGENT = initAgent();
+        runner = new InMemoryRunner(ROOT_AGENT);
+        sessionRegistry = new SessionRegistry(
+                runner,
+                maxSessions,
+                TimeUnit.MINUTES.toMillis(sessionIdleTimeoutMinutes),
+                maxCharsPerSession
+        );
     }
 
     public BaseAgent initAgent() {
-        return LlmAgent.builder()
+        LlmAgent.Builder agent = LlmAgent.builder()
                 .name(NAME)
-                .model("gemini-2.5-flash")
                 .description("""
                         Automated Hotfix Agent responsible for detecting, analyzing, and resolving production-impacting issues
                         based on provided error logs. The agent evaluates logs to identify code-level defects, exceptions, or
@@ -81,7 +136,9 @@ public class ChatService {
                         GitHub Tools:
                         - createBranch(branchName)
                         - getFileContent(filePath)
+                        - applyPatch(filePath, branchName, commitMessage, patch)
                         - updateFileContent(filePath, branchName, commitMessage, newContent)
+                        - commitFiles(branchName, commitMessage, files) where files is a list of {path, content}
                         - createPullRequest(branchName, title, description)
 
                         Jira Tool:
@@ -124,15 +181,31 @@ public class ChatService {
 
                         3. For each impacted file:
                            - Note Get the Filepath of error from the stack trace in the logs to identify which file to modify.
-                           - Note always have a prefix of "apps/shopvista-service/" before the filepath which you get from stacktrace.
+                           - Note always put the "Repository path prefix" given with the logs before the filepath which you get from stacktrace.
+                             Without one, use the prefix "{{defaultPathPrefix}}".
                            - EXECUTE getFileContent(filePath)
                            - Analyze the content and generate the minimal required fix
-                           - EXECUTE updateFileContent(
+                           Then commit the changes:
+                           - For a single file, EXECUTE applyPatch(
                                  filePath,
                                  branchName,
                                  commitMessage,
-                                 newContent
+                                 patch
                              )
+                             where patch holds only the changed lines, either as a unified diff with a few lines of context
+                             or as SEARCH/REPLACE blocks:
+                                 <<<<<<< SEARCH
+                                 exact current lines
+                                 =======
+                                 replacement lines
+                                 >>>>>>> REPLACE
+                             Never send the whole file. If the patch is rejected, fetch the file again and resend only the
+                             failing hunks. Use updateFileContent only for a new file or a rewrite of most of a file.
+                           - For several files, EXECUTE commitFiles(
+                                 branchName,
+                                 commitMessage,
+                                 files
+                             ) once, with every changed file, instead of one call per file
 
                         4. EXECUTE createPullRequest(
                                branchName,
@@ -150,26 +223,10 @@ public class ChatService {
                         3. Incident Tracking & Notification (After PR Creation)
                         --------------------------------------------------
 
-                        1. EXECUTE createStory(
-                               summary,
-                               description
-                           )
-                           - Include:
-                             - Incident details
-                             - Root cause analysis
-                             - Fix summary
-                             - GitHub PR reference
-
-                        2. EXECUTE sendEmail(
-                               subject,
-                               content
-                           )
-                           - Subject must clearly indicate a production incident or hotfix
-                           - Content (HTML) must include:
-                             - Incident description
-                             - Root cause
-                             - GitHub PR link
-                             - Jira Story reference
+                        Do NOT call createStory or sendEmail after creating a pull request.
+                        SentinelX raises the Jira story and sends the notification email for the
+                        pull request automatically, built from its title and description, so the
+                        pull request description must cover the incident, root cause and fix.
 
                         --------------------------------------------------
                         4. Configuration or Secret Issues
@@ -227,9 +284,17 @@ public class ChatService {
                         - Actions taken
                         - Links or references created
                         - Any required follow-up
-               \s""")
-
+               \s""".replace("{{defaultPathPrefix}}", serviceRegistry.get(null).pathPrefix()))
+                .model(modelFactory.model(model));
+
+        // Replay swaps the MCP servers for stand-ins answering from recorded runs
+        if (replayHarness.isReplaying()) {
+            return agent
+                    .tools(replayHarness.tools().toArray())
+                    .build();
+        }
 
+        return agent
                 .tools(
                         new McpToolset(
                                 StreamableHttpServerParameters.builder()
@@ -252,60 +317,140 @@ public class ChatService {
 
     public String converse(ChatRequest chatRequest) {
 
-        String userId = chatRequest.sessionId();
+        String sessionId = sessionId(chatRequest);
         String question = chatRequest.question();
-        StringBuilder response = new StringBuilder();
 
-        log.info("github mcp server url: {}", githubMcpServerUrl);
-
-        InMemoryRunner runner = new InMemoryRunner(ROOT_AGENT);
+        SessionRegistry.ChatSession chatSession = sessionRegistry.acquire(sessionId);
+        AtomicLong chars = new AtomicLong(question.length());
+        try {
+            return run(chatSession.session(), question, chars);
+        } finally {
+            sessionRegistry.release(chatSession, chars.get());
+        }
+    }
 
-        Session session = runner
-                .sessionService()
-                .createSession(runner.appName(), userId)
-                .blockingGet();
+    // Emits each agent event as it arrives. Nothing blocks the subscribing thread: the session
+    // is acquired on the io scheduler and released when the stream ends or is cancelled.
+    public Flowable<ChatEvent> stream(ChatRequest chatRequest) {
 
-        Content userMsg = Content.fromParts(Part.fromText(question));
-        Flowable<Event> events = runner.runAsync(session.userId(), session.id(), userMsg);
+        String sessionId = sessionId(chatRequest);
+        String question = chatRequest.question();
 
-        events.blockingForEach(event -> {
-            Content content = event.content().get();
-            if (content.parts().get().get(0).text().isPresent()) {
-                response.append(content.parts().get().get(0).text().get());
-            }
-        });
+        return Flowable.defer(() -> {
+            SessionRegistry.ChatSession chatSession = sessionRegistry.acquire(sessionId);
+            AtomicLong chars = new AtomicLong(question.length());
 
-        return response.toString();
+            return chatEvents(chatSession.session(), question, "stream")
+                    .doOnNext(chatEvent -> chars.addAndGet(chatEvent.chars()))
+                    .doFinally(() -> sessionRegistry.release(chatSession, chars.get()));
+        }).subscribeOn(executionMode.scheduler());
     }
 
     public void converse(List<String> cloudLogs) {
+        converse(null, cloudLogs, chatEvent -> {
+        });
+    }
+
+    // Runs the agent over the logs of the service (the default service when null or unknown),
+    // reporting every event to the listener, and returns the agent's final text, which is its
+    // summary of the actions taken. The triage model looks at the logs first; configuration and
+    // unfixable incidents are escalated from Java and never reach the hotfix agent, unless Java
+    // notifications are disabled, in which case the agent escalates them with its own tools.
+    public String converse(String service, List<String> cloudLogs, Consumer<ChatEvent> listener) {
 
         if(cloudLogs == null || cloudLogs.isEmpty()) {
-            return;
+            return "";
         }
 
-        String userId = "cloud-logs-user";
-        String question = "Analyze the following cloud logs and suggest necessary hotfixes:\n" + String.join("\n", cloudLogs);
+        String serviceName = serviceRegistry.resolve(service);
+        MonitoredService monitoredService = serviceRegistry.get(serviceName);
 
-        StringBuilder response = new StringBuilder();
-
-
-        InMemoryRunner runner = new InMemoryRunner(ROOT_AGENT);
+        String userId = "cloud-logs-user";
+        StringBuilder question = new StringBuilder()
+                .append("Service: ").append(serviceName).append('\n')
+                .append("Repository path prefix: ").append(monitoredService.pathPrefix()).append('\n');
+        if (monitoredService.instructions() != null && !monitoredService.instructions().isBlank()) {
+            question.append("Service instructions: ").append(monitoredService.instructions()).append('\n');
+        }
+        question.append("Analyze the following cloud logs and suggest necessary hotfixes:\n")
+                .append(String.join("\n", stackTraceCompactor.compact(monitoredService.appPackages(), cloudLogs)));
+
+        Triage triage = triageService.triage(question.toString());
+        switch (triage.classification()) {
+            case NO_ISSUE -> {
+                listener.accept(new ChatEvent(ChatEvent.TEXT, TRIAGE, triage.summary(), null, null));
+                return triage.summary();
+            }
+            case CONFIGURATION, NOT_FIXABLE -> {
+                if (hotfixNotifier.isEnabled()) {
+                    hotfixNotifier.escalate(serviceName, triage).forEach(listener);
+                    listener.accept(new ChatEvent(ChatEvent.TEXT, TRIAGE, triage.summary(), null, null));
+                    return triage.summary();
+                }
+                log.warn("Notifications disabled, handing {} incident in {} to the hotfix agent to escalate",
+                        triage.classification(), serviceName);
+            }
+            default -> {
+            }
+        }
 
+        // Each incident gets its own short-lived session on the shared runner
         Session session = runner
                 .sessionService()
                 .createSession(runner.appName(), userId)
                 .blockingGet();
 
-        Content userMsg = Content.fromParts(Part.fromText(question));
-        Flowable<Event> events = runner.runAsync(session.userId(), session.id(), userMsg);
+        StringBuilder summary = new StringBuilder();
+        try {
+            chatEvents(session, question.toString(), "incident")
+                    .blockingForEach(chatEvent -> {
+                        if (ChatEvent.TEXT.equals(chatEvent.type())) {
+                            summary.setLength(0);
+                            summary.append(chatEvent.text());
+                        }
+                        listener.accept(chatEvent);
+                    });
+        } finally {
+            runner.sessionService()
+                    .deleteSession(runner.appName(), session.userId(), session.id())
+                    .blockingAwait();
+        }
+        return summary.toString();
+    }
 
-        events.blockingForEach(event -> {
-            Content content = event.content().get();
-            if (content.parts().get().get(0).text().isPresent()) {
-                response.append(content.parts().get().get(0).text().get());
-            }
-        });
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleSessions() {
+        sessionRegistry.evictIdle();
+    }
+
+    private String sessionId(ChatRequest chatRequest) {
+        return chatRequest.sessionId() == null || chatRequest.sessionId().isBlank()
+                ? UUID.randomUUID().toString()
+                : chatRequest.sessionId();
+    }
+
+    private String run(Session session, String question, AtomicLong chars) {
 
+        StringBuilder response = new StringBuilder();
+
+        chatEvents(session, question, "chat")
+                .doOnNext(chatEvent -> chars.addAndGet(chatEvent.chars()))
+                .filter(chatEvent -> ChatEvent.TEXT.equals(chatEvent.type()))
+                .blockingForEach(chatEvent -> response.append(chatEvent.text()));
+
+        return response.toString();
+    }
+
+    // Agent events as chat events, followed by the Jira story and email once a PR was opened
+    private Flowable<ChatEvent> chatEvents(Session session, String question, String source) {
+        return runAgent(session, question, source)
+                .concatMapIterable(ChatEvent::from)
+                .compose(hotfixNotifier::afterPullRequest);
+    }
+
+    private Flowable<Event> runAgent(Session session, String question, String source) {
+        Content userMsg = Content.fromParts(Part.fromText(question));
+        Flowable<Event> events = agentMetrics.instrument(runner.runAsync(session.userId(), session.id(), userMsg), source);
+        return executionMode.limit(replayHarness.record(events, question));
     }
 }
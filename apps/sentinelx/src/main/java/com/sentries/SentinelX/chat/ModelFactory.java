@@ -0,0 +1,48 @@
+package com.sentries.SentinelX.chat;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.Gemini;
+import com.google.genai.Client;
+import com.google.genai.types.HttpOptions;
+import com.sentries.SentinelX.replay.ReplayHarness;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Builds the model for each agent tier. A base URL points every tier at another Gemini API
+// compatible endpoint, such as a local stand-in model server; otherwise the client is set up
+// from the usual GOOGLE_API_KEY / Vertex AI environment.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ModelFactory {
+
+    private final ReplayHarness replayHarness;
+
+    @Value("${sentinelx.models.base-url:}")
+    private String baseUrl;
+
+    @Value("${sentinelx.models.api-key:}")
+    private String apiKey;
+
+    public BaseLlm model(String modelName) {
+        // Replay swaps Gemini for a stand-in answering from recorded runs
+        if (replayHarness.isReplaying()) {
+            return replayHarness.model(modelName);
+        }
+
+        Client.Builder client = Client.builder();
+        if (!apiKey.isBlank()) {
+            client.apiKey(apiKey);
+        }
+        if (!baseUrl.isBlank()) {
+            log.info("Model {} served from {}", modelName, baseUrl);
+            client.httpOptions(HttpOptions.builder().baseUrl(baseUrl).build());
+        }
+        return Gemini.builder()
+                .modelName(modelName)
+                .apiClient(client.build())
+                .build();
+    }
+}
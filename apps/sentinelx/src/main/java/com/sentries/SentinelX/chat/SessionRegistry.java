@@ -0,0 +1,146 @@
+package com.sentries.SentinelX.chat;
+
+import com.google.adk.runner.Runner;
+import com.google.adk.sessions.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+// Keeps ADK sessions alive across chat requests so a sessionId continues its conversation.
+// Sessions are evicted least-recently-used beyond maxSize, after idling for idleTimeoutMillis,
+// and are started over once their conversation, tool calls and results included, grows past
+// maxCharsPerSession.
+@Slf4j
+class SessionRegistry {
+
+    private final Runner runner;
+
+    private final int maxSize;
+
+    private final long idleTimeoutMillis;
+
+    private final long maxCharsPerSession;
+
+    private final LinkedHashMap<String, ChatSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    SessionRegistry(Runner runner, int maxSize, long idleTimeoutMillis, long maxCharsPerSession) {
+        this.runner = runner;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxCharsPerSession = maxCharsPerSession;
+    }
+
+    // Returns the session for sessionId, held exclusively by the caller until release(...)
+    ChatSession acquire(String sessionId) {
+        ChatSession chatSession;
+        List<ChatSession> evicted = new ArrayList<>();
+        synchronized (this) {
+            chatSession = sessions.computeIfAbsent(sessionId, key -> new ChatSession());
+            chatSession.lastAccess = System.currentTimeMillis();
+            while (sessions.size() > maxSize) {
+                Iterator<ChatSession> eldest = sessions.values().iterator();
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        evicted.forEach(this::evict);
+
+        chatSession.permit.acquireUninterruptibly();
+        try {
+            if (chatSession.session == null || chatSession.chars > maxCharsPerSession) {
+                if (chatSession.session != null) {
+                    log.info("Session {} exceeded {} chars, starting a new conversation", sessionId, maxCharsPerSession);
+                    delete(chatSession);
+                }
+                chatSession.session = runner
+                        .sessionService()
+                        .createSession(runner.appName(), sessionId)
+                        .blockingGet();
+                chatSession.chars = 0;
+            }
+        } catch (RuntimeException e) {
+            // The caller never gets the session, so it can't release it
+            chatSession.permit.release();
+            throw e;
+        }
+        return chatSession;
+    }
+
+    void release(ChatSession chatSession, long chars) {
+        chatSession.chars += chars;
+        boolean evicted = chatSession.evicted;
+        chatSession.permit.release();
+        if (evicted) {
+            evict(chatSession);
+        }
+    }
+
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        List<ChatSession> idle = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, ChatSession>> iterator = sessions.entrySet().iterator();
+            while (iterator.hasNext()) {
+                ChatSession chatSession = iterator.next().getValue();
+                if (chatSession.lastAccess >= cutoff) {
+                    break;
+                }
+                idle.add(chatSession);
+                iterator.remove();
+            }
+        }
+        idle.forEach(this::evict);
+        if (!idle.isEmpty()) {
+            log.info("Evicted {} idle chat sessions, {} remaining", idle.size(), size());
+        }
+    }
+
+    synchronized int size() {
+        return sessions.size();
+    }
+
+    // A session still in use is deleted by its current holder on release
+    private void evict(ChatSession chatSession) {
+        chatSession.evicted = true;
+        if (chatSession.permit.tryAcquire()) {
+            try {
+                delete(chatSession);
+            } finally {
+                chatSession.permit.release();
+            }
+        }
+    }
+
+    private void delete(ChatSession chatSession) {
+        if (chatSession.session == null) {
+            return;
+        }
+        runner.sessionService()
+                .deleteSession(runner.appName(), chatSession.session.userId(), chatSession.session.id())
+                .blockingAwait();
+        chatSession.session = null;
+    }
+
+    static final class ChatSession {
+
+        // A permit rather than a lock, since a streamed run releases it from another thread
+        private final Semaphore permit = new Semaphore(1);
+
+        private Session session;
+
+        private long chars;
+
+        private volatile long lastAccess;
+
+        private volatile boolean evicted;
+
+        Session session() {
+            return session;
+        }
+    }
+}
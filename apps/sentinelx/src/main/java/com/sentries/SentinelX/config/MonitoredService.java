@@ -0,0 +1,16 @@
+package com.sentries.SentinelX.config;
+
+import java.util.List;
+
+// One service SentinelX watches: where its logs arrive, where its code lives in the repository,
+// extra prompt instructions for the agent, how many agent runs it may have at once
+// (sentinelx.agent.max-concurrent-runs when unset), and the packages of its own code in stack
+// traces (sentinelx.fingerprint.app-packages when unset).
+public record MonitoredService(
+        String subscription,
+        String pathPrefix,
+        String instructions,
+        Integer maxConcurrentRuns,
+        List<String> appPackages
+) {
+}
@@ -0,0 +1,31 @@
+package com.sentries.SentinelX.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Collections;
+import java.util.Map;
+
+// Services bound from sentinelx.services.<name>.*, in declaration order. The first one is the
+// default for logs and requests that don't name a known service. Only the services map is
+// bound; the rest of the sentinelx namespace stays with the @Value fields that read it.
+@ConfigurationProperties(prefix = "sentinelx")
+public record ServiceRegistry(Map<String, MonitoredService> services) {
+
+    public ServiceRegistry {
+        services = services == null ? Map.of() : Collections.unmodifiableMap(services);
+    }
+
+    public String resolve(String name) {
+        if (name != null && services.containsKey(name)) {
+            return name;
+        }
+        if (services.isEmpty()) {
+            throw new IllegalStateException("No services configured under sentinelx.services");
+        }
+        return services.keySet().iterator().next();
+    }
+
+    public MonitoredService get(String name) {
+        return services.get(resolve(name));
+    }
+}
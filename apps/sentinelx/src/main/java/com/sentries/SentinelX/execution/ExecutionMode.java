@@ -0,0 +1,94 @@
+package com.sentries.SentinelX.execution;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+// Picks platform or virtual threads for SentinelX's own blocking work, following
+// spring.threads.virtual.enabled which already switches Tomcat and @Scheduled methods over.
+// Virtual threads are cheap enough that nothing bounds them by itself, so every agent run also
+// takes an in-flight permit, which caps the load put on Gemini and the MCP servers.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ExecutionMode {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${sentinelx.agent.max-in-flight:16}")
+    private int maxInFlight;
+
+    // Platform threads for streams and notifications; virtual threads need no pool
+    @Value("${sentinelx.execution.platform-threads:16}")
+    private int platformThreads;
+
+    private Semaphore inFlight;
+
+    private ExecutorService executor;
+
+    private Scheduler scheduler;
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight, true);
+        Gauge.builder("sentinelx.agent.in-flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Agent runs currently holding an in-flight permit")
+                .register(meterRegistry);
+
+        executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(threadFactory("sentinelx-rx-"))
+                : Executors.newFixedThreadPool(platformThreads, threadFactory("sentinelx-rx-"));
+        scheduler = Schedulers.from(executor);
+        log.info("Running blocking work on {} threads, at most {} agent runs in flight",
+                virtualThreads ? "virtual" : "platform", maxInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtualThreads;
+    }
+
+    public ThreadFactory threadFactory(String namePrefix) {
+        return virtualThreads
+                ? Thread.ofVirtual().name(namePrefix, 0).factory()
+                : Thread.ofPlatform().name(namePrefix, 0).factory();
+    }
+
+    // Scheduler for subscriptions that block, used in place of Schedulers.io()
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    // Holds an in-flight permit from subscription until the run completes, fails or is cancelled
+    public <T> Flowable<T> limit(Flowable<T> run) {
+        return Flowable.using(
+                () -> {
+                    inFlight.acquire();
+                    return inFlight;
+                },
+                permits -> run,
+                Semaphore::release);
+    }
+}
@@ -0,0 +1,14 @@
+package com.sentries.SentinelX.incident;
+
+// Cluster-wide lease on an incident fingerprint, so that only one SentinelX instance runs the
+// agent for it. A claim expires on its own, so a crashed instance never blocks an incident
+// for longer than the lease.
+public interface ClaimStore {
+
+    // True when this instance now holds the claim: nobody held it, the previous lease expired, or
+    // it already held it, in which case the lease is renewed
+    boolean tryClaim(String fingerprint, String owner, long leaseMillis);
+
+    // Gives the claim up early, e.g. after a failed run, so another instance can retry
+    void release(String fingerprint, String owner);
+}
@@ -0,0 +1,60 @@
+package com.sentries.SentinelX.incident;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Approximate counts in fixed memory: depth rows of width counters, one counter per row for each
+// key. The estimate is the smallest of a key's counters, which never undercounts and overcounts
+// by at most total / width with high probability.
+class CountMinSketch {
+
+    private final int width;
+
+    private final int depth;
+
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    // Adds one occurrence and returns the new estimate
+    long add(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    // Ages every count, so the sketch follows the current storm rather than all time
+    void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, count -> count >>> 1);
+        }
+    }
+
+    int sizeInBytes() {
+        return counters.length() * Long.BYTES;
+    }
+
+    private int index(int row, long hash) {
+        return row * width + (int) Long.remainderUnsigned(mix(hash + row * 0x9E3779B97F4A7C15L), width);
+    }
+
+    // SplitMix64 finalizer, gives each row an independent looking hash of the same key
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
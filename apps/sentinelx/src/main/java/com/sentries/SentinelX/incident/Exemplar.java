@@ -0,0 +1,5 @@
+package com.sentries.SentinelX.incident;
+
+// The first log line seen for a fingerprint, standing in for all its near-identical repeats
+public record Exemplar(String service, Fingerprint fingerprint, String logLine) {
+}
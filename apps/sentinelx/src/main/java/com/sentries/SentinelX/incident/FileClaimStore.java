@@ -0,0 +1,130 @@
+package com.sentries.SentinelX.incident;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// One small file per claimed fingerprint holding "owner expiresAt". Claims are taken under an
+// exclusive file lock, so instances sharing the directory (a local disk in tests, or a shared
+// volume) agree on the owner.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "sentinelx.claims.store", havingValue = "file", matchIfMissing = true)
+public class FileClaimStore implements ClaimStore {
+
+    @Value("${sentinelx.claims.file.dir:claims}")
+    private String dir;
+
+    // File locks are held per JVM, so threads of this instance queue here first
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Override
+    public boolean tryClaim(String fingerprint, String owner, long leaseMillis) {
+        Path file = Path.of(dir).resolve(fingerprint);
+        lock.lock();
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+
+                long now = System.currentTimeMillis();
+                Claim claim = read(channel);
+                if (claim != null && claim.expiresAt() > now && !claim.owner().equals(owner)) {
+                    return false;
+                }
+                write(channel, new Claim(owner, now + leaseMillis));
+                return true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not claim incident " + fingerprint, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(String fingerprint, String owner) {
+        Path file = Path.of(dir).resolve(fingerprint);
+        lock.lock();
+        try {
+            // Checked under the lock, so a purge of this instance can't delete it in between
+            if (!Files.exists(file)) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                Claim claim = read(channel);
+                if (claim != null && claim.owner().equals(owner)) {
+                    write(channel, new Claim(owner, 0));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not release claim on incident {}", fingerprint, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeExpired() {
+        Path claims = Path.of(dir);
+        if (!Files.isDirectory(claims)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try (Stream<Path> files = Files.list(claims)) {
+            for (Path file : files.toList()) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    Claim claim = read(channel);
+                    if (claim == null || claim.expiresAt() <= now) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not purge expired incident claims from {}", dir, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Claim read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 512));
+        channel.read(buffer, 0);
+        String[] fields = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim().split(" ");
+        if (fields.length != 2) {
+            return null;
+        }
+        try {
+            return new Claim(fields[0], Long.parseLong(fields[1]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void write(FileChannel channel, Claim claim) throws IOException {
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap((claim.owner() + ' ' + claim.expiresAt()).getBytes(StandardCharsets.UTF_8)), 0);
+        channel.force(false);
+    }
+
+    private record Claim(String owner, long expiresAt) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.sentries.SentinelX.incident;
+
+import java.util.List;
+
+public record Fingerprint(String key, String exceptionType, List<String> frames, String messageTemplate) {
+}
@@ -0,0 +1,132 @@
+package com.sentries.SentinelX.incident;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+public class FingerprintCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sentinelx.fingerprint.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${sentinelx.fingerprint.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // Insertion ordered, so the eldest entry is always the first one to expire
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    private volatile long admitted;
+
+    private volatile long suppressed;
+
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("sentinelx.fingerprint.admitted", this, cache -> cache.admitted)
+                .description("Incidents sent to the agent as novel fingerprints")
+                .register(meterRegistry);
+        FunctionCounter.builder("sentinelx.fingerprint.suppressed", this, cache -> cache.suppressed)
+                .description("Incidents suppressed as recently handled")
+                .register(meterRegistry);
+        Gauge.builder("sentinelx.fingerprint.cache.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    // Returns true if the fingerprint has not been handled within the TTL and should go to the agent
+    public synchronized boolean tryAcquire(Fingerprint fingerprint) {
+        long now = System.currentTimeMillis();
+        evictExpired(now);
+
+        Entry entry = entries.get(fingerprint.key());
+        if (entry != null) {
+            entry.suppressed++;
+            suppressed++;
+            return false;
+        }
+
+        entries.put(fingerprint.key(), new Entry(fingerprint, now));
+        admitted++;
+        return true;
+    }
+
+    // Restarts the TTL of a fingerprint whose run is only now starting, after waiting in the queue.
+    // Re-inserted, so the insertion order still matches the expiry order.
+    public synchronized void refresh(Fingerprint fingerprint) {
+        Entry previous = entries.remove(fingerprint.key());
+        Entry entry = new Entry(fingerprint, System.currentTimeMillis());
+        if (previous != null) {
+            entry.suppressed = previous.suppressed;
+        }
+        entries.put(fingerprint.key(), entry);
+    }
+
+    // Forgets a fingerprint whose agent run failed, so its redelivery is not suppressed
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized Map<String, Object> stats(int top) {
+        evictExpired(System.currentTimeMillis());
+
+        List<Map<String, Object>> topSuppressed = entries.values().stream()
+                .filter(entry -> entry.suppressed > 0)
+                .sorted(Comparator.comparingLong((Entry entry) -> entry.suppressed).reversed())
+                .limit(top)
+                .map(entry -> Map.<String, Object>of(
+                        "fingerprint", entry.fingerprint.key(),
+                        "exceptionType", entry.fingerprint.exceptionType(),
+                        "messageTemplate", entry.fingerprint.messageTemplate(),
+                        "suppressed", entry.suppressed))
+                .toList();
+
+        return Map.of(
+                "size", entries.size(),
+                "admitted", admitted,
+                "suppressed", suppressed,
+                "topSuppressed", topSuppressed
+        );
+    }
+
+    private void evictExpired(long now) {
+        long ttlMillis = ttlMinutes * 60_000;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().handledAt < ttlMillis) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Fingerprint fingerprint;
+
+        private final long handledAt;
+
+        private long suppressed;
+
+        private Entry(Fingerprint fingerprint, long handledAt) {
+            this.fingerprint = fingerprint;
+            this.handledAt = handledAt;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.sentries.SentinelX.incident;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "fingerprints")
+@RequiredArgsConstructor
+public class FingerprintEndpoint {
+
+    private final FingerprintCache fingerprintCache;
+
+    @ReadOperation
+    public Map<String, Object> fingerprints() {
+        return fingerprintCache.stats(20);
+    }
+}
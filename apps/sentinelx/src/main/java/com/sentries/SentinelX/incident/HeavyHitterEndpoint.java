@@ -0,0 +1,21 @@
+package com.sentries.SentinelX.incident;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "heavyhitters")
+@RequiredArgsConstructor
+public class HeavyHitterEndpoint {
+
+    private final HeavyHitters heavyHitters;
+
+    @ReadOperation
+    public Map<String, Object> heavyHitters() {
+        return heavyHitters.stats(20);
+    }
+}
@@ -0,0 +1,173 @@
+package com.sentries.SentinelX.incident;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Tracks the heaviest error signatures of a log storm in fixed memory: a count-min sketch
+// counts every fingerprint seen, and a table of the topK fingerprints keeps an exemplar line
+// for each. Counts are halved every decay period, so the table follows the current storm.
+@Component
+@RequiredArgsConstructor
+public class HeavyHitters {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sentinelx.heavy-hitters.width:2048}")
+    private int width;
+
+    @Value("${sentinelx.heavy-hitters.depth:4}")
+    private int depth;
+
+    @Value("${sentinelx.heavy-hitters.top-k:50}")
+    private int topK;
+
+    // Longest exemplar line kept in the table
+    @Value("${sentinelx.heavy-hitters.max-exemplar-chars:8000}")
+    private int maxExemplarChars;
+
+    private CountMinSketch sketch;
+
+    private final Map<String, HeavyHitter> table = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        sketch = new CountMinSketch(width, depth);
+        Gauge.builder("sentinelx.heavy-hitters.tracked", this, heavyHitters -> heavyHitters.size())
+                .description("Fingerprints in the heavy-hitter table")
+                .register(meterRegistry);
+    }
+
+    // Counts one occurrence and returns the fingerprint's approximate count in the current window
+    public long add(Exemplar exemplar) {
+        String key = exemplar.fingerprint().key();
+        long count = sketch.add(hash(key));
+
+        synchronized (this) {
+            HeavyHitter heavyHitter = table.get(key);
+            if (heavyHitter != null) {
+                heavyHitter.count = count;
+                return count;
+            }
+            if (table.size() >= topK) {
+                HeavyHitter lightest = table.values().stream()
+                        .min(Comparator.comparingLong(candidate -> candidate.count))
+                        .orElseThrow();
+                if (lightest.count >= count) {
+                    return count;
+                }
+                table.remove(lightest.exemplar.fingerprint().key());
+            }
+            table.put(key, new HeavyHitter(truncate(exemplar), count));
+        }
+        return count;
+    }
+
+    public long estimate(String fingerprintKey) {
+        return sketch.estimate(hash(fingerprintKey));
+    }
+
+    // The incident's exemplars, heaviest first, as prompt lines. A leading summary line gives the
+    // agent the approximate occurrences of each, instead of every repeat of the same line.
+    public List<String> promptLines(Incident incident, int limit) {
+        List<Exemplar> exemplars = incident.exemplars().stream()
+                .sorted(Comparator.comparingLong((Exemplar exemplar) -> estimate(exemplar.fingerprint().key())).reversed())
+                .limit(limit)
+                .toList();
+
+        StringBuilder summary = new StringBuilder("Heaviest error signatures in this incident (approximate occurrences):");
+        for (Exemplar exemplar : exemplars) {
+            Fingerprint fingerprint = exemplar.fingerprint();
+            summary.append("\n- ")
+                    .append(fingerprint.exceptionType().isEmpty() ? fingerprint.messageTemplate() : fingerprint.exceptionType())
+                    .append(fingerprint.frames().isEmpty() ? "" : " at " + fingerprint.frames().get(0))
+                    .append(": ~").append(estimate(fingerprint.key()));
+        }
+
+        List<String> lines = new ArrayList<>(exemplars.size() + 1);
+        lines.add(summary.toString());
+        exemplars.forEach(exemplar -> lines.add(exemplar.logLine()));
+        return lines;
+    }
+
+    public synchronized List<Map<String, Object>> top(int limit) {
+        return table.values().stream()
+                .sorted(Comparator.comparingLong((HeavyHitter heavyHitter) -> heavyHitter.count).reversed())
+                .limit(limit)
+                .map(HeavyHitter::describe)
+                .toList();
+    }
+
+    public Map<String, Object> stats(int limit) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sketchWidth", width);
+        stats.put("sketchDepth", depth);
+        stats.put("sketchBytes", sketch.sizeInBytes());
+        stats.put("tracked", size());
+        stats.put("top", top(limit));
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${sentinelx.heavy-hitters.decay-ms:60000}")
+    public void decay() {
+        sketch.halve();
+        synchronized (this) {
+            table.values().removeIf(heavyHitter -> (heavyHitter.count >>>= 1) == 0);
+        }
+    }
+
+    private synchronized int size() {
+        return table.size();
+    }
+
+    private Exemplar truncate(Exemplar exemplar) {
+        return exemplar.logLine().length() <= maxExemplarChars
+                ? exemplar
+                : new Exemplar(exemplar.service(), exemplar.fingerprint(), exemplar.logLine().substring(0, maxExemplarChars));
+    }
+
+    // Fingerprint keys are already hex hashes
+    private static long hash(String fingerprintKey) {
+        try {
+            return Long.parseUnsignedLong(fingerprintKey, 16);
+        } catch (NumberFormatException e) {
+            return fingerprintKey.hashCode();
+        }
+    }
+
+    private static final class HeavyHitter {
+
+        private final Exemplar exemplar;
+
+        private long count;
+
+        private HeavyHitter(Exemplar exemplar, long count) {
+            this.exemplar = exemplar;
+            this.count = count;
+        }
+
+        private Map<String, Object> describe() {
+            Fingerprint fingerprint = exemplar.fingerprint();
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("fingerprint", fingerprint.key());
+            description.put("service", exemplar.service());
+            description.put("approximateCount", count);
+            description.put("exceptionType", fingerprint.exceptionType());
+            description.put("frames", fingerprint.frames());
+            description.put("messageTemplate", fingerprint.messageTemplate());
+            description.put("exemplar", exemplar.logLine().substring(0, Math.min(exemplar.logLine().length(), 500)));
+            return description;
+        }
+    }
+}
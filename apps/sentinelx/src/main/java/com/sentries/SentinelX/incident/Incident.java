@@ -0,0 +1,22 @@
+package com.sentries.SentinelX.incident;
+
+import com.sentries.SentinelX.ingest.LogMessage;
+
+import java.util.List;
+
+// exemplars holds the first line of each distinct fingerprint among the messages
+public record Incident(Fingerprint fingerprint, List<LogMessage> messages, List<Exemplar> exemplars) {
+
+    // Bundles never span services, so the first message names the service of all of them
+    public String service() {
+        return messages.get(0).service();
+    }
+
+    public void ack() {
+        messages.forEach(message -> message.ackHandle().ack());
+    }
+
+    public void nack() {
+        messages.forEach(message -> message.ackHandle().nack());
+    }
+}
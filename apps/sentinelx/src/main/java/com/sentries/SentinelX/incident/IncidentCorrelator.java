@@ -0,0 +1,137 @@
+package com.sentries.SentinelX.incident;
+
+import com.sentries.SentinelX.ingest.LogMessage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Groups log messages that belong to the same failure, by trace id, then request id, then
+// fingerprint. A bundle closes once no message has joined it for windowMs, once it has been
+// open for maxWindowMs, or once it holds maxBundleSize messages. At most maxOpenBundles are
+// kept; beyond that the oldest is closed early. Each dispatch lane has its own correlator.
+public class IncidentCorrelator {
+
+    private static final Pattern CLOUD_TRACE = Pattern.compile("\"trace\"\\s*:\\s*\"(?:projects/[^/\"]+/traces/)?([\\w-]+)\"");
+
+    private static final Pattern TRACE_ID = Pattern.compile("(?i)\\btrace[_-]?id\\b[\"']?\\s*[:=]\\s*[\"']?([\\w-]{8,})");
+
+    private static final Pattern REQUEST_ID = Pattern.compile("(?i)\\b(?:x-)?request[_-]?id\\b[\"']?\\s*[:=]\\s*[\"']?([\\w-]{8,})");
+
+    private final long windowMs;
+
+    private final long maxWindowMs;
+
+    private final int maxBundleSize;
+
+    private final int maxOpenBundles;
+
+    private final LinkedHashMap<String, Bundle> bundles = new LinkedHashMap<>();
+
+    public IncidentCorrelator(long windowMs, long maxWindowMs, int maxBundleSize, int maxOpenBundles) {
+        this.windowMs = windowMs;
+        this.maxWindowMs = maxWindowMs;
+        this.maxBundleSize = maxBundleSize;
+        this.maxOpenBundles = maxOpenBundles;
+    }
+
+    // Adds a message and returns the bundles this closed, because of size or capacity limits
+    public synchronized List<Incident> add(LogMessage message, Fingerprint fingerprint, long now) {
+        List<Incident> closed = new ArrayList<>();
+
+        String key = correlationKey(message.data(), fingerprint);
+        Bundle bundle = bundles.get(key);
+        if (bundle == null) {
+            if (bundles.size() >= maxOpenBundles) {
+                Iterator<Bundle> eldest = bundles.values().iterator();
+                closed.add(eldest.next().toIncident());
+                eldest.remove();
+            }
+            bundle = new Bundle(fingerprint, now);
+            bundles.put(key, bundle);
+        }
+
+        bundle.add(message, fingerprint, now);
+        if (bundle.messages.size() >= maxBundleSize) {
+            bundles.remove(key);
+            closed.add(bundle.toIncident());
+        }
+        return closed;
+    }
+
+    public synchronized List<Incident> closeExpired(long now) {
+        List<Incident> closed = new ArrayList<>();
+        Iterator<Bundle> iterator = bundles.values().iterator();
+        while (iterator.hasNext()) {
+            Bundle bundle = iterator.next();
+            if (now - bundle.lastSeen >= windowMs || now - bundle.firstSeen >= maxWindowMs) {
+                closed.add(bundle.toIncident());
+                iterator.remove();
+            }
+        }
+        return closed;
+    }
+
+    public synchronized List<Incident> closeAll() {
+        List<Incident> closed = bundles.values().stream().map(Bundle::toIncident).toList();
+        bundles.clear();
+        return closed;
+    }
+
+    public synchronized int openBundles() {
+        return bundles.size();
+    }
+
+    private String correlationKey(String logLine, Fingerprint fingerprint) {
+        Matcher trace = CLOUD_TRACE.matcher(logLine);
+        if (trace.find()) {
+            return "trace:" + trace.group(1);
+        }
+        Matcher traceId = TRACE_ID.matcher(logLine);
+        if (traceId.find()) {
+            return "trace:" + traceId.group(1);
+        }
+        Matcher requestId = REQUEST_ID.matcher(logLine);
+        if (requestId.find()) {
+            return "request:" + requestId.group(1);
+        }
+        return "fingerprint:" + fingerprint.key();
+    }
+
+    private static final class Bundle {
+
+        private final long firstSeen;
+
+        private final List<LogMessage> messages = new ArrayList<>();
+
+        // Repeats of a line only add to messages, for acking; the prompt needs one of each
+        private final Map<String, Exemplar> exemplars = new LinkedHashMap<>();
+
+        private Fingerprint fingerprint;
+
+        private long lastSeen;
+
+        private Bundle(Fingerprint fingerprint, long now) {
+            this.fingerprint = fingerprint;
+            this.firstSeen = now;
+        }
+
+        // The bundle is identified by its first message that carries an exception
+        private void add(LogMessage message, Fingerprint messageFingerprint, long now) {
+            messages.add(message);
+            exemplars.putIfAbsent(messageFingerprint.key(),
+                    new Exemplar(message.service(), messageFingerprint, message.data()));
+            lastSeen = now;
+            if (fingerprint.exceptionType().isEmpty() && !messageFingerprint.exceptionType().isEmpty()) {
+                fingerprint = messageFingerprint;
+            }
+        }
+
+        private Incident toIncident() {
+            return new Incident(fingerprint, messages, List.copyOf(exemplars.values()));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.sentries.SentinelX.incident;
+
+import com.sentries.SentinelX.chat.ChatEvent;
+import com.sentries.SentinelX.chat.ChatService;
+import com.sentries.SentinelX.config.ServiceRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+// Runs incidents through the agent highest score first instead of in arrival order. Each
+// service queues its incidents until one of its run slots frees up. Waiting incidents gain
+// agingPointsPerMinute, so a low-scoring incident eventually overtakes newer critical ones.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IncidentExecutor {
+
+    private final ChatService chatService;
+
+    private final ServiceRegistry serviceRegistry;
+
+    private final HeavyHitters heavyHitters;
+
+    private final IncidentScorer incidentScorer;
+
+    private final MeterRegistry meterRegistry;
+
+    // Per service, unless the service sets its own maxConcurrentRuns
+    @Value("${sentinelx.agent.max-concurrent-runs:4}")
+    private int maxConcurrentRuns;
+
+    // Distinct error signatures per incident sent to the agent, heaviest first
+    @Value("${sentinelx.heavy-hitters.exemplars-per-incident:10}")
+    private int exemplarsPerIncident;
+
+    @Value("${sentinelx.agent.run-timeout-minutes:10}")
+    private long runTimeoutMinutes;
+
+    // Per service; trySubmit turns incidents away while its service's queue is full
+    @Value("${sentinelx.priority.max-queued:100}")
+    private int maxQueued;
+
+    @Value("${sentinelx.priority.aging-points-per-minute:5}")
+    private double agingPointsPerMinute;
+
+    private final Map<String, RunQueue> queues = new ConcurrentHashMap<>();
+
+    private final Map<Priority, AtomicInteger> queued = new EnumMap<>(Priority.class);
+
+    private final Map<Priority, Timer> queueWaits = new EnumMap<>(Priority.class);
+
+    private final long startedAt = System.nanoTime();
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService watchdog;
+
+    @PostConstruct
+    public void init() {
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            AtomicInteger depth = new AtomicInteger();
+            queued.put(priority, depth);
+            Gauge.builder("sentinelx.incidents.queued", depth, AtomicInteger::get)
+                    .description("Incidents waiting for an agent run slot")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            queueWaits.put(priority, Timer.builder("sentinelx.incidents.queue-wait")
+                    .description("Time incidents waited for an agent run slot")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+        }
+        serviceRegistry.services().forEach((service, settings) -> queues.put(service, new RunQueue(
+                settings.maxConcurrentRuns() == null ? maxConcurrentRuns : settings.maxConcurrentRuns())));
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sentinelx-agent-", 0).factory());
+        watchdog = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("sentinelx-agent-watchdog").daemon(true).factory());
+    }
+
+    // Queued incidents are handed back as cancelled, so their messages are nacked for redelivery
+    @PreDestroy
+    public void shutdown() {
+        queues.values().forEach(RunQueue::cancelQueued);
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    // Queues the incident for an agent run, or returns false straight away when its service's queue
+    // is full. onStart runs first thing in the run and can call it off, in which case onDone is not
+    // called. Runs exceeding the timeout are interrupted. onDone receives the outcome on success, or
+    // the failure.
+    public boolean trySubmit(Incident incident, BooleanSupplier onStart,
+                             BiConsumer<IncidentOutcome, Throwable> onDone) {
+        RunQueue queue = queues.computeIfAbsent(incident.service(), service -> new RunQueue(maxConcurrentRuns));
+        double score = incidentScorer.score(incident);
+        boolean accepted = queue.offer(new QueuedRun(incident, onStart, onDone, score, Priority.of(score),
+                System.nanoTime()));
+        if (accepted) {
+            log.info("Queued {} incident {} with score {}", incident.service(),
+                    incident.fingerprint().key(), Math.round(score));
+        }
+        return accepted;
+    }
+
+    // Minutes since startup; rank and aging share this clock
+    private double minutes(long nanoTime) {
+        return (nanoTime - startedAt) / 60e9;
+    }
+
+    private record QueuedRun(Incident incident, BooleanSupplier onStart, BiConsumer<IncidentOutcome, Throwable> onDone,
+                             double score,
+                             Priority priority, long queuedAt) {
+    }
+
+    private final class RunQueue {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Aging adds the same points per minute to every waiting incident, so ordering by the score
+        // minus the aging owed at enqueue time keeps the heap in effective-score order
+        private final PriorityQueue<QueuedRun> pending = new PriorityQueue<>(Comparator.comparingDouble(
+                (QueuedRun run) -> run.score() - agingPointsPerMinute * minutes(run.queuedAt())).reversed());
+
+        private final int maxRuns;
+
+        private int running;
+
+        private RunQueue(int maxRuns) {
+            this.maxRuns = maxRuns;
+        }
+
+        private boolean offer(QueuedRun run) {
+            lock.lock();
+            try {
+                if (pending.size() >= maxQueued) {
+                    return false;
+                }
+                pending.add(run);
+                queued.get(run.priority()).incrementAndGet();
+                startNext();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void finished() {
+            lock.lock();
+            try {
+                running--;
+                startNext();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void cancelQueued() {
+            List<QueuedRun> cancelled;
+            lock.lock();
+            try {
+                cancelled = new ArrayList<>(pending);
+                pending.clear();
+                cancelled.forEach(run -> queued.get(run.priority()).decrementAndGet());
+            } finally {
+                lock.unlock();
+            }
+            cancelled.forEach(run -> run.onDone().accept(null, new CancellationException("Shutting down")));
+        }
+
+        // Called with the lock held
+        private void startNext() {
+            while (running < maxRuns && !pending.isEmpty()) {
+                QueuedRun next = pending.poll();
+                queued.get(next.priority()).decrementAndGet();
+                queueWaits.get(next.priority()).record(System.nanoTime() - next.queuedAt(), TimeUnit.NANOSECONDS);
+
+                running++;
+                AgentRun run = new AgentRun(next.incident(), this, next.onStart(), next.onDone());
+                run.watchdog = watchdog.schedule(() -> run.cancel(true), runTimeoutMinutes, TimeUnit.MINUTES);
+                executor.execute(run);
+            }
+        }
+    }
+
+    private final class AgentRun extends FutureTask<IncidentOutcome> {
+
+        private final Incident incident;
+
+        private final BiConsumer<IncidentOutcome, Throwable> onDone;
+
+        private final RunQueue queue;
+
+        private ScheduledFuture<?> watchdog;
+
+        private AgentRun(Incident incident, RunQueue queue, BooleanSupplier onStart,
+                         BiConsumer<IncidentOutcome, Throwable> onDone) {
+            super(() -> {
+                if (!onStart.getAsBoolean()) {
+                    return null;
+                }
+                List<ChatEvent> chatEvents = new ArrayList<>();
+                chatService.converse(incident.service(),
+                        heavyHitters.promptLines(incident, exemplarsPerIncident), chatEvents::add);
+                return IncidentOutcome.of(incident.fingerprint().key(), chatEvents);
+            });
+            this.incident = incident;
+            this.queue = queue;
+            this.onDone = onDone;
+        }
+
+        // Called exactly once, whether the run completed, failed or was cancelled
+        @Override
+        protected void done() {
+            watchdog.cancel(false);
+            queue.finished();
+
+            IncidentOutcome outcome = null;
+            Throwable failure = null;
+            try {
+                outcome = get();
+            } catch (CancellationException e) {
+                log.warn("Agent run for incident {} timed out after {} minutes",
+                        incident.fingerprint().key(), runTimeoutMinutes);
+                failure = e;
+            } catch (ExecutionException e) {
+                log.error("Agent run for incident {} failed", incident.fingerprint().key(), e.getCause());
+                failure = e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            }
+            // Called off by onStart
+            if (outcome == null && failure == null) {
+                return;
+            }
+            onDone.accept(outcome, failure);
+        }
+    }
+}
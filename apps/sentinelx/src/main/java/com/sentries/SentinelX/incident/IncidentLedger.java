@@ -0,0 +1,190 @@
+package com.sentries.SentinelX.incident;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Append-only file of handled incidents (fingerprint, time, PR URL, Jira key), one tab separated
+// line each, so restarts and new instances don't raise the same fix again. The latest line per
+// fingerprint is indexed in memory at startup; the file is rewritten without superseded or
+// expired lines once they outnumber the live ones.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IncidentLedger {
+
+    private static final String NONE = "-";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sentinelx.ledger.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sentinelx.ledger.path:incident-ledger.tsv}")
+    private String path;
+
+    @Value("${sentinelx.ledger.ttl-days:7}")
+    private long ttlDays;
+
+    private final Map<String, IncidentOutcome> index = new ConcurrentHashMap<>();
+
+    private BufferedWriter writer;
+
+    // A lock rather than synchronized: appends do file I/O and must not pin virtual threads
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("sentinelx.ledger.size", index, Map::size)
+                .description("Handled incidents indexed from the ledger")
+                .register(meterRegistry);
+
+        Path file = Path.of(path);
+        long startedAt = System.nanoTime();
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            long lines = Files.exists(file) ? read(file) : 0;
+            if (lines > 2L * index.size() + 1000) {
+                compact(file);
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open incident ledger " + file, e);
+        }
+        log.info("Loaded {} handled incidents from {} in {} ms",
+                index.size(), file, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<IncidentOutcome> find(String fingerprint) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        IncidentOutcome outcome = index.get(fingerprint);
+        if (outcome == null || isExpired(outcome, System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        meterRegistry.counter("sentinelx.ledger.hits").increment();
+        return Optional.of(outcome);
+    }
+
+    // Only outcomes with a PR or a Jira story are kept; a no-op run must not suppress the
+    // fingerprint for ttl-days
+    public void record(IncidentOutcome outcome) {
+        if (!enabled || !outcome.isActionable()) {
+            return;
+        }
+        index.put(outcome.fingerprint(), outcome);
+        writeLock.lock();
+        try {
+            writer.write(format(outcome));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            log.error("Could not append incident {} to ledger", outcome.fingerprint(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long read(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        long lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                IncidentOutcome outcome = parse(line);
+                if (outcome != null && outcome.isActionable() && !isExpired(outcome, now)) {
+                    index.put(outcome.fingerprint(), outcome);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private void compact(Path file) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (BufferedWriter out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (IncidentOutcome outcome : index.values()) {
+                out.write(format(outcome));
+                out.newLine();
+            }
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compacted incident ledger to {} entries", index.size());
+    }
+
+    private boolean isExpired(IncidentOutcome outcome, long now) {
+        return now - outcome.handledAt() > TimeUnit.DAYS.toMillis(ttlDays);
+    }
+
+    private static String format(IncidentOutcome outcome) {
+        return outcome.fingerprint() + '\t' + outcome.handledAt() + '\t'
+                + field(outcome.pullRequestUrl()) + '\t' + field(outcome.jiraKey());
+    }
+
+    // Splits on tabs by hand; this runs for every line at startup
+    private static IncidentOutcome parse(String line) {
+        int first = line.indexOf('\t');
+        int second = first < 0 ? -1 : line.indexOf('\t', first + 1);
+        int third = second < 0 ? -1 : line.indexOf('\t', second + 1);
+        if (third < 0) {
+            return null;
+        }
+        try {
+            return new IncidentOutcome(
+                    line.substring(0, first),
+                    Long.parseLong(line, first + 1, second, 10),
+                    value(line.substring(second + 1, third)),
+                    value(line.substring(third + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String field(String value) {
+        return value == null || value.isBlank() ? NONE : value.replaceAll("\\s", "");
+    }
+
+    private static String value(String field) {
+        return NONE.equals(field) ? null : field;
+    }
+}
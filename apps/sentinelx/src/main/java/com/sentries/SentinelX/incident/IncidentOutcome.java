@@ -0,0 +1,51 @@
+package com.sentries.SentinelX.incident;
+
+import com.sentries.SentinelX.chat.ChatEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public record IncidentOutcome(String fingerprint, long handledAt, String pullRequestUrl, String jiraKey) {
+
+    // MCP tool results may arrive as a map or wrapped as JSON text, so the values are matched
+    // on the rendered result rather than looked up by key
+    private static final Pattern PULL_REQUEST_URL = Pattern.compile(
+            "pullRequestUrl\\\\?\"?\\s*[=:]\\s*\\\\?\"?(https?://[^\\s,\"\\\\}]+)");
+
+    private static final Pattern JIRA_KEY = Pattern.compile(
+            "issueKey\\\\?\"?\\s*[=:]\\s*\\\\?\"?([A-Z][A-Z0-9]+-\\d+)");
+
+    public static IncidentOutcome of(String fingerprint, List<ChatEvent> chatEvents) {
+        String pullRequestUrl = null;
+        String jiraKey = null;
+        for (ChatEvent chatEvent : chatEvents) {
+            if (!ChatEvent.TOOL_RESULT.equals(chatEvent.type()) || chatEvent.payload() == null) {
+                continue;
+            }
+            String result = String.valueOf(chatEvent.payload());
+            if ("createPullRequest".equals(chatEvent.tool())) {
+                pullRequestUrl = find(PULL_REQUEST_URL, result, pullRequestUrl);
+            } else if ("createStory".equals(chatEvent.tool())) {
+                jiraKey = find(JIRA_KEY, result, jiraKey);
+            }
+        }
+        return new IncidentOutcome(fingerprint, System.currentTimeMillis(), pullRequestUrl, jiraKey);
+    }
+
+    // Runs that opened no PR and raised no story, e.g. nothing to fix or the agent gave up, leave
+    // nothing for a later occurrence to point at
+    public boolean isActionable() {
+        return pullRequestUrl != null || jiraKey != null;
+    }
+
+    public static String pullRequestUrl(Map<String, Object> result) {
+        return find(PULL_REQUEST_URL, String.valueOf(result), null);
+    }
+
+    private static String find(Pattern pattern, String result, String fallback) {
+        Matcher matcher = pattern.matcher(result);
+        return matcher.find() ? matcher.group(1) : fallback;
+    }
+}
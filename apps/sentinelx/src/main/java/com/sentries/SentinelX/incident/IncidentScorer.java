@@ -0,0 +1,76 @@
+package com.sentries.SentinelX.incident;
+
+import com.sentries.SentinelX.ingest.Severity;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Scores an incident from 0 to 100 for the agent queue: up to 40 for the highest severity among
+// its exemplars, 30 when one of them touches a critical endpoint, and up to 30 for how often its
+// signatures are occurring right now.
+@Component
+@RequiredArgsConstructor
+public class IncidentScorer {
+
+    // Lines that got past the filter without a level, or below WARNING, are usually stack traces
+    private static final double UNKNOWN_SEVERITY_POINTS = 20;
+
+    private static final double ENDPOINT_POINTS = 30;
+
+    private static final double MAX_RATE_POINTS = 30;
+
+    private final HeavyHitters heavyHitters;
+
+    // Request paths or code locations whose failures break the business, e.g. /checkout or OrderService.createOrder
+    @Value("${sentinelx.priority.critical-endpoints:}")
+    private String[] criticalEndpoints;
+
+    private List<String> endpoints;
+
+    @PostConstruct
+    public void init() {
+        endpoints = Arrays.stream(criticalEndpoints)
+                .map(String::strip)
+                .filter(endpoint -> !endpoint.isEmpty())
+                .toList();
+    }
+
+    public double score(Incident incident) {
+        double severity = 0;
+        boolean critical = false;
+        long occurrences = 0;
+        for (Exemplar exemplar : incident.exemplars()) {
+            severity = Math.max(severity, severityPoints(exemplar.logLine()));
+            critical |= touchesCriticalEndpoint(exemplar);
+            occurrences = Math.max(occurrences, heavyHitters.estimate(exemplar.fingerprint().key()));
+        }
+        occurrences = Math.max(occurrences, incident.messages().size());
+
+        // 1 occurrence scores 3 points, 1000 score the full 30
+        double rate = Math.min(MAX_RATE_POINTS, 10 * Math.log10(1 + occurrences));
+        return severity + (critical ? ENDPOINT_POINTS : 0) + rate;
+    }
+
+    private boolean touchesCriticalEndpoint(Exemplar exemplar) {
+        for (String endpoint : endpoints) {
+            if (exemplar.logLine().contains(endpoint)
+                    || exemplar.fingerprint().frames().stream().anyMatch(frame -> frame.contains(endpoint))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double severityPoints(String logLine) {
+        return Severity.of(logLine).map(severity -> switch (severity) {
+            case WARNING -> 5.0;
+            case ERROR -> 20.0;
+            case CRITICAL -> 40.0;
+            default -> UNKNOWN_SEVERITY_POINTS;
+        }).orElse(UNKNOWN_SEVERITY_POINTS);
+    }
+}
@@ -0,0 +1,103 @@
+package com.sentries.SentinelX.incident;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Pattern;
+
+// Claims as rows of a shared table. A claim is an insert, or when the row already exists, an
+// update that only succeeds once the previous lease has expired; either way the database
+// decides the single winner. Meant for PostgreSQL (Cloud SQL), but the SQL avoids dialect
+// specific upserts so other databases with a JDBC driver on the classpath work too.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "sentinelx.claims.store", havingValue = "jdbc")
+public class JdbcClaimStore implements ClaimStore {
+
+    // The table name is spliced into the SQL, so it must be a plain, optionally schema qualified,
+    // identifier
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+    @Value("${sentinelx.claims.jdbc.url}")
+    private String url;
+
+    @Value("${sentinelx.claims.jdbc.username:}")
+    private String username;
+
+    @Value("${sentinelx.claims.jdbc.password:}")
+    private String password;
+
+    @Value("${sentinelx.claims.jdbc.max-pool-size:4}")
+    private int maxPoolSize;
+
+    @Value("${sentinelx.claims.jdbc.table:sentinelx_incident_claims}")
+    private String table;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalStateException("Invalid sentinelx.claims.jdbc.table: " + table);
+        }
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setPoolName("sentinelx-claims");
+        dataSource = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "fingerprint VARCHAR(64) PRIMARY KEY, "
+                + "owner VARCHAR(128) NOT NULL, "
+                + "expires_at BIGINT NOT NULL)");
+        log.info("Claiming incidents through table {}", table);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Override
+    public boolean tryClaim(String fingerprint, String owner, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        try {
+            jdbcTemplate.update("INSERT INTO " + table + " (fingerprint, owner, expires_at) VALUES (?, ?, ?)",
+                    fingerprint, owner, now + leaseMillis);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return jdbcTemplate.update("UPDATE " + table + " SET owner = ?, expires_at = ? "
+                            + "WHERE fingerprint = ? AND (expires_at <= ? OR owner = ?)",
+                    owner, now + leaseMillis, fingerprint, now, owner) == 1;
+        }
+    }
+
+    @Override
+    public void release(String fingerprint, String owner) {
+        jdbcTemplate.update("DELETE FROM " + table + " WHERE fingerprint = ? AND owner = ?", fingerprint, owner);
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM " + table + " WHERE expires_at <= ?", System.currentTimeMillis());
+        if (purged > 0) {
+            log.info("Purged {} expired incident claims", purged);
+        }
+    }
+}
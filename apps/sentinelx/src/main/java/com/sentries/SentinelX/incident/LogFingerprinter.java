@@ -0,0 +1,109 @@
+package com.sentries.SentinelX.incident;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class LogFingerprinter {
+
+    // Matches a fully qualified exception type and the rest of its line as the message.
+    // Logs usually arrive as JSON, so an escaped "\n" also ends the line.
+    private static final Pattern EXCEPTION = Pattern.compile(
+            "((?:[a-zA-Z_$][\\w$]*\\.)+[A-Z][\\w$]*(?:Exception|Error|Throwable))(?::[ \\t]*((?:[^\\r\\n\\\\]|\\\\(?![nrt]))*))?");
+
+    private static final Pattern CAUSED_BY = Pattern.compile("Caused by:\\s*" + EXCEPTION.pattern());
+
+    private static final Pattern FRAME = Pattern.compile("(?:\\b|\\\\t)at\\s+((?:[\\w$]+\\.)+[\\w$<>]+)\\(");
+
+    private static final Pattern UUID = Pattern.compile(
+            "\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+
+    private static final Pattern HEX = Pattern.compile("\\b0x[0-9a-fA-F]+\\b|\\b[0-9a-fA-F]{12,}\\b");
+
+    private static final Pattern QUOTED = Pattern.compile("'[^']*'|\"[^\"]*\"");
+
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+(?:[.:]\\d+)*\\b");
+
+    private static final int MAX_TEMPLATE_LENGTH = 200;
+
+    @Value("${sentinelx.fingerprint.app-packages:com.shopvista}")
+    private String[] appPackages;
+
+    @Value("${sentinelx.fingerprint.max-frames:3}")
+    private int maxFrames;
+
+    public Fingerprint fingerprint(String service, String logLine) {
+        return fingerprint(service, List.of(), logLine);
+    }
+
+    // The same failure in two services is two incidents, since each has its own code to fix.
+    // Frames from appPackages identify the failure; without any, the global app-packages apply.
+    public Fingerprint fingerprint(String service, List<String> appPackages, String logLine) {
+
+        String exceptionType = "";
+        String message = logLine;
+
+        // Prefer the root cause, which is where the actual defect usually is
+        Matcher causedBy = CAUSED_BY.matcher(logLine);
+        Matcher exception = EXCEPTION.matcher(logLine);
+        boolean hasCause = false;
+        while (causedBy.find()) {
+            hasCause = true;
+            exceptionType = causedBy.group(1);
+            message = causedBy.group(2);
+        }
+        if (!hasCause && exception.find()) {
+            exceptionType = exception.group(1);
+            message = exception.group(2);
+        }
+
+        List<String> frames = applicationFrames(
+                appPackages == null || appPackages.isEmpty() ? Arrays.asList(this.appPackages) : appPackages, logLine);
+        String template = template(message == null ? "" : message);
+
+        String key = hash(service + '|' + exceptionType + '|' + String.join(",", frames) + '|' + template);
+        return new Fingerprint(key, exceptionType, frames, template);
+    }
+
+    private List<String> applicationFrames(List<String> packages, String logLine) {
+        List<String> frames = new ArrayList<>();
+        Matcher frame = FRAME.matcher(logLine);
+        while (frames.size() < maxFrames && frame.find()) {
+            String method = frame.group(1);
+            if (packages.stream().anyMatch(method::startsWith)) {
+                frames.add(method);
+            }
+        }
+        return frames;
+    }
+
+    // Replaces the variable parts of a message (ids, numbers, quoted values) with placeholders
+    // so that the same failure with different data maps to the same template.
+    private String template(String message) {
+        String template = UUID.matcher(message).replaceAll("<uuid>");
+        template = HEX.matcher(template).replaceAll("<hex>");
+        template = QUOTED.matcher(template).replaceAll("<str>");
+        template = NUMBER.matcher(template).replaceAll("<n>");
+        template = template.strip();
+        return template.length() > MAX_TEMPLATE_LENGTH ? template.substring(0, MAX_TEMPLATE_LENGTH) : template;
+    }
+
+    private String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
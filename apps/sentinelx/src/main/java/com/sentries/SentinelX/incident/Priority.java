@@ -0,0 +1,25 @@
+package com.sentries.SentinelX.incident;
+
+// Bands of the incident score, used to tag queue metrics rather than to order the queue
+public enum Priority {
+
+    CRITICAL(70),
+    HIGH(45),
+    NORMAL(20),
+    LOW(0);
+
+    private final double minScore;
+
+    Priority(double minScore) {
+        this.minScore = minScore;
+    }
+
+    public static Priority of(double score) {
+        for (Priority priority : values()) {
+            if (score >= priority.minScore) {
+                return priority;
+            }
+        }
+        return LOW;
+    }
+}
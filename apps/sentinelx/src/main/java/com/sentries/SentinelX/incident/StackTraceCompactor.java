@@ -0,0 +1,134 @@
+package com.sentries.SentinelX.incident;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Shrinks log entries before they go into an agent prompt: application frames, exception
+// headers and the cause chain are kept, framework frames are collapsed into counts, and
+// identical entries in a batch become one exemplar with an occurrence count. A cause already
+// shown earlier in the batch is reduced to its Caused by line.
+@Component
+@RequiredArgsConstructor
+public class StackTraceCompactor {
+
+    private static final Pattern FRAME = Pattern.compile("^\\s*at\\s+((?:[\\w$]+\\.)+[\\w$<>]+)\\(.*\\)\\s*$");
+
+    // The JVM's own marker for frames shared with the enclosing trace, kept as it is
+    private static final Pattern MORE = Pattern.compile("^\\s*\\.\\.\\. \\d+ (?:more|common frames omitted)\\s*$");
+
+    private static final String CAUSED_BY = "Caused by:";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${sentinelx.fingerprint.app-packages:com.shopvista}")
+    private String[] appPackages;
+
+    public List<String> compact(List<String> logLines) {
+        return compact(List.of(), logLines);
+    }
+
+    // Frames outside appPackages are collapsed; without any, the global app-packages apply
+    public List<String> compact(List<String> appPackages, List<String> logLines) {
+        List<String> packages = appPackages == null || appPackages.isEmpty() ? Arrays.asList(this.appPackages) : appPackages;
+        Map<String, Integer> occurrences = new LinkedHashMap<>();
+        for (String logLine : logLines) {
+            occurrences.merge(compactEntry(packages, payload(logLine)), 1, Integer::sum);
+        }
+
+        // Causes are compared after identical entries were merged, so those still merge
+        Set<String> shownCauses = new HashSet<>();
+        List<String> compacted = new ArrayList<>(occurrences.size());
+        occurrences.forEach((entry, count) -> {
+            String deduplicated = withoutShownCauses(entry, shownCauses);
+            compacted.add(count > 1 ? "[occurred " + count + " times]\n" + deduplicated : deduplicated);
+        });
+        return compacted;
+    }
+
+    // Pulls the log text out of a Cloud Logging entry, so escaped stack traces become lines again
+    private String payload(String logLine) {
+        if (!logLine.startsWith("{")) {
+            return logLine;
+        }
+        try {
+            JsonNode entry = objectMapper.readTree(logLine);
+            String severity = entry.path("severity").asText("");
+            String text = entry.hasNonNull("textPayload")
+                    ? entry.get("textPayload").asText()
+                    : entry.path("jsonPayload").path("message").asText("") + "\n"
+                            + entry.path("jsonPayload").path("stack_trace").asText("");
+            if (text.isBlank()) {
+                return logLine;
+            }
+            return severity.isEmpty() ? text.strip() : severity + " " + text.strip();
+        } catch (IOException e) {
+            return logLine;
+        }
+    }
+
+    private String compactEntry(List<String> packages, String text) {
+        List<String> lines = new ArrayList<>();
+        int collapsed = 0;
+
+        for (String line : text.split("\\r?\\n")) {
+            Matcher frame = FRAME.matcher(line);
+            if (frame.matches() && packages.stream().noneMatch(frame.group(1)::startsWith)) {
+                collapsed++;
+            } else if (MORE.matcher(line).matches()) {
+                collapsed = flush(lines, collapsed);
+                lines.add("\t" + line.strip());
+            } else {
+                collapsed = flush(lines, collapsed);
+                lines.add(line.stripTrailing());
+            }
+        }
+        flush(lines, collapsed);
+        return String.join("\n", lines);
+    }
+
+    // A cause is its Caused by line with the lines up to the next one
+    private String withoutShownCauses(String entry, Set<String> shownCauses) {
+        List<String> lines = List.of(entry.split("\n"));
+        List<String> kept = new ArrayList<>(lines.size());
+        int i = 0;
+        while (i < lines.size()) {
+            if (!lines.get(i).strip().startsWith(CAUSED_BY)) {
+                kept.add(lines.get(i++));
+                continue;
+            }
+            int end = i + 1;
+            while (end < lines.size() && !lines.get(end).strip().startsWith(CAUSED_BY)) {
+                end++;
+            }
+            List<String> cause = lines.subList(i, end);
+            if (shownCauses.add(String.join("\n", cause))) {
+                kept.addAll(cause);
+            } else {
+                kept.add(lines.get(i) + " [stack trace shown above]");
+            }
+            i = end;
+        }
+        return String.join("\n", kept);
+    }
+
+    private int flush(List<String> lines, int collapsed) {
+        if (collapsed > 0) {
+            lines.add("\t... " + collapsed + " framework frames omitted");
+        }
+        return 0;
+    }
+}
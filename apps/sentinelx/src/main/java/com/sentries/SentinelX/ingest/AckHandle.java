@@ -0,0 +1,18 @@
+package com.sentries.SentinelX.ingest;
+
+public interface AckHandle {
+
+    AckHandle NONE = new AckHandle() {
+        @Override
+        public void ack() {
+        }
+
+        @Override
+        public void nack() {
+        }
+    };
+
+    void ack();
+
+    void nack();
+}
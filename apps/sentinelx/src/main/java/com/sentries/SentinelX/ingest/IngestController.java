@@ -0,0 +1,54 @@
+package com.sentries.SentinelX.ingest;
+
+import com.sentries.SentinelX.config.ServiceRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.zip.ZipException;
+
+@RestController
+@RequestMapping("api/v1/logs")
+@RequiredArgsConstructor
+public class IngestController {
+
+    private final LogIngestService logIngestService;
+
+    private final ServiceRegistry serviceRegistry;
+
+    @Value("${sentinelx.ingest.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    // Accepts application/x-ndjson, optionally with Content-Encoding: gzip. The body is streamed
+    // straight from the request instead of being bound to a parameter. Without a service the
+    // logs go to the default one; a service that isn't configured is refused.
+    @PostMapping(consumes = {"application/x-ndjson", "application/jsonl", "text/plain"})
+    public ResponseEntity<IngestResult> ingest(@RequestParam(required = false) String service,
+                                               HttpServletRequest request) throws IOException, InterruptedException {
+        if (service != null && !serviceRegistry.services().containsKey(service)) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        IngestResult result;
+        try {
+            result = logIngestService.ingest(serviceRegistry.resolve(service), request.getInputStream(), gzip);
+        } catch (ZipException e) {
+            // Lines before the corrupt part may already be in the pipeline
+            return ResponseEntity.badRequest().build();
+        }
+        if (result.rejected()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(result);
+        }
+        return ResponseEntity.accepted().body(result);
+    }
+}
@@ -0,0 +1,6 @@
+package com.sentries.SentinelX.ingest;
+
+// accepted lines went to the pipeline (or were filtered out there), oversized lines were
+// skipped, and rejected is true when the service's queue stayed full and the stream was cut short
+public record IngestResult(long accepted, long oversized, boolean rejected) {
+}
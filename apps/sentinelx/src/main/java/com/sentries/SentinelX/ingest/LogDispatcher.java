@@ -0,0 +1,324 @@
+package com.sentries.SentinelX.ingest;
+
+import com.sentries.SentinelX.config.ServiceRegistry;
+import com.sentries.SentinelX.incident.ClaimStore;
+import com.sentries.SentinelX.incident.Exemplar;
+import com.sentries.SentinelX.incident.Fingerprint;
+import com.sentries.SentinelX.incident.FingerprintCache;
+import com.sentries.SentinelX.incident.HeavyHitters;
+import com.sentries.SentinelX.incident.Incident;
+import com.sentries.SentinelX.incident.IncidentCorrelator;
+import com.sentries.SentinelX.incident.IncidentExecutor;
+import com.sentries.SentinelX.incident.IncidentLedger;
+import com.sentries.SentinelX.incident.IncidentOutcome;
+import com.sentries.SentinelX.incident.LogFingerprinter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Each monitored service gets its own lane: a bounded queue, a correlator and a dispatcher
+// thread. A service flooding its queue slows down only its own producers, and its incidents
+// wait only on its own agent run budget.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LogDispatcher {
+
+    private final LogFingerprinter logFingerprinter;
+
+    private final FingerprintCache fingerprintCache;
+
+    private final IncidentExecutor incidentExecutor;
+
+    private final IncidentLedger incidentLedger;
+
+    private final ClaimStore claimStore;
+
+    private final HeavyHitters heavyHitters;
+
+    private final ServiceRegistry serviceRegistry;
+
+    private final MeterRegistry meterRegistry;
+
+    private final List<LogFilter> logFilters;
+
+    @Value("${sentinelx.dispatch.queue-capacity:5000}")
+    private int queueCapacity;
+
+    @Value("${sentinelx.dispatch.tick-ms:500}")
+    private long tickMs;
+
+    // Covers the longest agent run, so a claim never lapses while its run is still going. Renewed
+    // when a queued incident's run starts.
+    @Value("${sentinelx.claims.lease-minutes:30}")
+    private long claimLeaseMinutes;
+
+    @Value("${sentinelx.correlation.window-ms:5000}")
+    private long windowMs;
+
+    @Value("${sentinelx.correlation.max-window-ms:60000}")
+    private long maxWindowMs;
+
+    @Value("${sentinelx.correlation.max-bundle-size:200}")
+    private int maxBundleSize;
+
+    @Value("${sentinelx.correlation.max-open-bundles:1000}")
+    private int maxOpenBundles;
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    // Identifies this instance as the owner of its incident claims
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private DistributionSummary incidentSizes;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        incidentSizes = DistributionSummary.builder("sentinelx.dispatch.incident.size")
+                .description("Log messages per dispatched incident")
+                .register(meterRegistry);
+
+        running = true;
+        for (String service : serviceRegistry.services().keySet()) {
+            lanes.put(service, new Lane(service));
+        }
+        log.info("Dispatching logs for services {}", lanes.keySet());
+    }
+
+    // Bundles still collecting are handed back to Pub/Sub for redelivery
+    @PreDestroy
+    public void stop() {
+        running = false;
+        lanes.values().forEach(Lane::stop);
+    }
+
+    // Non-actionable lines are acked straight away and never take queue space. Otherwise blocks
+    // the caller for up to the given timeout when the service's queue is full, so that producers
+    // slow down instead of the backlog growing without bound.
+    public boolean offer(LogMessage message, long timeout, TimeUnit unit) throws InterruptedException {
+        for (LogFilter logFilter : logFilters) {
+            Optional<String> reason = logFilter.reject(message.data());
+            if (reason.isPresent()) {
+                meterRegistry.counter("sentinelx.filter.dropped", "reason", reason.get()).increment();
+                message.ackHandle().ack();
+                return true;
+            }
+        }
+        meterRegistry.counter("sentinelx.filter.passed").increment();
+
+        String service = serviceRegistry.resolve(message.service());
+        if (!service.equals(message.service())) {
+            message = new LogMessage(service, message.data(), message.ackHandle());
+        }
+        return lanes.get(service).queue.offer(message, timeout, unit);
+    }
+
+    public int backlog() {
+        return lanes.values().stream().mapToInt(lane -> lane.queue.size()).sum();
+    }
+
+    // An unreachable claim store shouldn't stop incidents from being handled, so it fails open
+    private boolean claim(String fingerprint) {
+        boolean claimed;
+        String outcome;
+        try {
+            claimed = claimStore.tryClaim(fingerprint, instanceId, TimeUnit.MINUTES.toMillis(claimLeaseMinutes));
+            outcome = claimed ? "claimed" : "skipped";
+        } catch (RuntimeException e) {
+            log.warn("Could not claim incident {}, handling it here", fingerprint, e);
+            claimed = true;
+            outcome = "error";
+        }
+        meterRegistry.counter("sentinelx.claims", "outcome", outcome).increment();
+        return claimed;
+    }
+
+    private void releaseClaim(String fingerprint) {
+        try {
+            claimStore.release(fingerprint, instanceId);
+        } catch (RuntimeException e) {
+            log.warn("Could not release claim on incident {}, it lapses with its lease", fingerprint, e);
+        }
+    }
+
+    private final class Lane {
+
+        private final String service;
+
+        private final BlockingQueue<LogMessage> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final IncidentCorrelator incidentCorrelator =
+                new IncidentCorrelator(windowMs, maxWindowMs, maxBundleSize, maxOpenBundles);
+
+        // Incidents turned away by a full run queue, handed over again each tick. New messages stay
+        // in the queue meanwhile, while expired bundles keep closing on time.
+        private final Deque<Incident> held = new ArrayDeque<>();
+
+        private final Thread worker;
+
+        private Lane(String service) {
+            this.service = service;
+
+            Gauge.builder("sentinelx.dispatch.backlog", queue, BlockingQueue::size)
+                    .description("Log messages waiting to be dispatched to the agent")
+                    .tag("service", service)
+                    .register(meterRegistry);
+            Gauge.builder("sentinelx.correlation.open", incidentCorrelator, IncidentCorrelator::openBundles)
+                    .description("Incident bundles still collecting log messages")
+                    .tag("service", service)
+                    .register(meterRegistry);
+
+            worker = Thread.ofPlatform()
+                    .name("sentinelx-dispatcher-" + service)
+                    .daemon(true)
+                    .start(this::dispatchLoop);
+        }
+
+        private void stop() {
+            worker.interrupt();
+            incidentCorrelator.closeAll().forEach(Incident::nack);
+        }
+
+        private void dispatchLoop() {
+            try {
+                dispatchUntilStopped();
+            } finally {
+                // Owned by this thread, so given back here rather than in stop
+                held.forEach(this::giveBack);
+                held.clear();
+            }
+        }
+
+        private void dispatchUntilStopped() {
+            List<LogMessage> drained = new ArrayList<>();
+            List<String> appPackages = serviceRegistry.get(service).appPackages();
+            while (running) {
+                int handedOver = 0;
+                try {
+                    handOverHeld();
+                    if (held.isEmpty()) {
+                        LogMessage first = queue.poll(tickMs, TimeUnit.MILLISECONDS);
+                        if (first != null) {
+                            drained.add(first);
+                            queue.drainTo(drained);
+                        }
+                    } else {
+                        Thread.sleep(tickMs);
+                    }
+
+                    long now = System.currentTimeMillis();
+                    for (LogMessage message : drained) {
+                        Fingerprint fingerprint = logFingerprinter.fingerprint(service, appPackages, message.data());
+                        heavyHitters.add(new Exemplar(service, fingerprint, message.data()));
+                        List<Incident> closed = incidentCorrelator.add(message, fingerprint, now);
+                        handedOver++;
+                        dispatch(closed);
+                    }
+                    dispatch(incidentCorrelator.closeExpired(now));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.error("Error dispatching {} logs to agent, unprocessed messages nacked for redelivery", service, e);
+                } finally {
+                    // Messages the correlator already holds stay with it; the rest go back for redelivery
+                    drained.subList(handedOver, drained.size()).forEach(message -> message.ackHandle().nack());
+                    drained.clear();
+                }
+            }
+        }
+
+        // Messages are only acknowledged once the agent run over them has finished, so a
+        // crash mid-run leaves them on the subscription for redelivery.
+        private void dispatch(List<Incident> incidents) {
+            for (Incident incident : incidents) {
+
+                // Incidents already handled within the cache TTL are acked without reaching the agent
+                if (!fingerprintCache.tryAcquire(incident.fingerprint())) {
+                    incident.ack();
+                    continue;
+                }
+
+                // Handled before, possibly by an earlier instance: point at the existing fix instead
+                Optional<IncidentOutcome> handled = incidentLedger.find(incident.fingerprint().key());
+                if (handled.isPresent()) {
+                    log.info("Incident {} already handled, PR: {}, Jira: {}", incident.fingerprint().key(),
+                            handled.get().pullRequestUrl(), handled.get().jiraKey());
+                    incident.ack();
+                    continue;
+                }
+
+                // Another instance is already on it: its own copies of the messages carry the run
+                String key = incident.fingerprint().key();
+                if (!claim(key)) {
+                    log.info("Incident {} claimed by another instance, skipping", key);
+                    incident.ack();
+                    continue;
+                }
+
+                incidentSizes.record(incident.messages().size());
+                log.info("Dispatching {} incident {} with {} log lines to agent, backlog: {}", service,
+                        incident.fingerprint().key(), incident.messages().size(), queue.size());
+
+                // Keeps arrival order behind incidents already held
+                if (!held.isEmpty() || !handOver(incident)) {
+                    held.add(incident);
+                }
+            }
+        }
+
+        private void handOverHeld() {
+            while (!held.isEmpty() && handOver(held.peek())) {
+                held.poll();
+            }
+        }
+
+        // The incident may wait in the run queue longer than the lease and the cache TTL, so both
+        // are renewed when its run starts. A lapsed claim taken over meanwhile calls it off.
+        private boolean handOver(Incident incident) {
+            String key = incident.fingerprint().key();
+            return incidentExecutor.trySubmit(incident, () -> {
+                if (!claim(key)) {
+                    log.info("Incident {} claimed by another instance while queued, skipping", key);
+                    incident.ack();
+                    return false;
+                }
+                fingerprintCache.refresh(incident.fingerprint());
+                return true;
+            }, (outcome, failure) -> {
+                if (failure == null) {
+                    incidentLedger.record(outcome);
+                    incident.ack();
+                } else {
+                    giveBack(incident);
+                }
+            });
+        }
+
+        private void giveBack(Incident incident) {
+            fingerprintCache.invalidate(incident.fingerprint().key());
+            releaseClaim(incident.fingerprint().key());
+            incident.nack();
+        }
+    }
+}
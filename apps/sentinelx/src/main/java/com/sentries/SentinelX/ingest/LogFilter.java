@@ -0,0 +1,11 @@
+package com.sentries.SentinelX.ingest;
+
+import java.util.Optional;
+
+// A cheap check run on every log line before it is queued for the agent. Any bean implementing
+// this joins the pre-filter stage; a line is dropped as soon as one filter rejects it.
+public interface LogFilter {
+
+    // Returns why the line is not actionable, or empty to let it through
+    Optional<String> reject(String logLine);
+}
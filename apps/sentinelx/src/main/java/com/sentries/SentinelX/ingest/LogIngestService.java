@@ -0,0 +1,115 @@
+package com.sentries.SentinelX.ingest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+// Feeds NDJSON log streams into the same pipeline as Pub/Sub, one line per log entry. The body
+// is read and decompressed as it arrives, so only the current line is ever held in memory.
+// There is no redelivery over HTTP: lines are handed over with AckHandle.NONE, and a producer
+// that gets a rejected result backs off and resends the lines after the accepted ones.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LogIngestService {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final LogDispatcher logDispatcher;
+
+    @Value("${sentinelx.ingest.max-line-chars:1048576}")
+    private int maxLineChars;
+
+    @Value("${sentinelx.ingest.handoff-timeout-ms:30000}")
+    private long handoffTimeoutMs;
+
+    public IngestResult ingest(String service, InputStream body, boolean gzip) throws IOException, InterruptedException {
+        InputStream in = gzip ? new GZIPInputStream(body, BUFFER_SIZE) : body;
+        Lines lines = new Lines(service);
+
+        // Scans decoded chunks for line ends instead of reading a char at a time
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[BUFFER_SIZE];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines.append(buffer, start, i);
+                        start = i + 1;
+                        if (!lines.flush()) {
+                            return lines.result(true);
+                        }
+                    }
+                }
+                lines.append(buffer, start, read);
+            }
+            if (!lines.flush()) {
+                return lines.result(true);
+            }
+        }
+
+        log.debug("Ingested {} log lines for {}", lines.accepted, service);
+        return lines.result(false);
+    }
+
+    private final class Lines {
+
+        private final String service;
+
+        private final StringBuilder line = new StringBuilder();
+
+        private boolean overflow;
+
+        private long accepted;
+
+        private long oversized;
+
+        private Lines(String service) {
+            this.service = service;
+        }
+
+        // Keeps at most maxLineChars of the current line; the line is skipped if it was longer
+        private void append(char[] buffer, int from, int to) {
+            int length = Math.min(to - from, maxLineChars - line.length());
+            line.append(buffer, from, length);
+            overflow |= to - from > length;
+        }
+
+        // Hands the current line to the dispatcher; false when its queue stayed full
+        private boolean flush() throws InterruptedException {
+            try {
+                if (overflow) {
+                    oversized++;
+                    return true;
+                }
+                String data = line.toString().strip();
+                if (data.isEmpty()) {
+                    return true;
+                }
+                if (!logDispatcher.offer(new LogMessage(service, data, AckHandle.NONE), handoffTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    log.warn("Dispatch queue for {} full, rejecting ingest after {} lines", service, accepted);
+                    return false;
+                }
+                accepted++;
+                return true;
+            } finally {
+                line.setLength(0);
+                overflow = false;
+            }
+        }
+
+        private IngestResult result(boolean rejected) {
+            return new IngestResult(accepted, oversized, rejected);
+        }
+    }
+}
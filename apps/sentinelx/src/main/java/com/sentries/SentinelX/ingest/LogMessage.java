@@ -0,0 +1,4 @@
+package com.sentries.SentinelX.ingest;
+
+public record LogMessage(String service, String data, AckHandle ackHandle) {
+}
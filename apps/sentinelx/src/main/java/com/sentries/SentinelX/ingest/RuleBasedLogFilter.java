@@ -0,0 +1,58 @@
+package com.sentries.SentinelX.ingest;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+@Component
+public class RuleBasedLogFilter implements LogFilter {
+
+    private static final Pattern EXCEPTION = Pattern.compile("\\b(?:[\\w$]+\\.)+[\\w$]*(?:Exception|Error)\\b");
+
+    @Value("${sentinelx.filter.min-severity:ERROR}")
+    private String minSeverity;
+
+    // Known-benign messages that are never worth an agent run, even at ERROR
+    @Value("${sentinelx.filter.benign-patterns:}")
+    private String[] benignPatterns;
+
+    private Severity minimum;
+
+    private List<Pattern> benign;
+
+    @PostConstruct
+    public void init() {
+        minimum = Severity.named(minSeverity).orElse(Severity.ERROR);
+        benign = Arrays.stream(benignPatterns)
+                .filter(pattern -> !pattern.isBlank())
+                .map(Pattern::compile)
+                .toList();
+    }
+
+    @Override
+    public Optional<String> reject(String logLine) {
+
+        for (Pattern pattern : benign) {
+            if (pattern.matcher(logLine).find()) {
+                return Optional.of("benign");
+            }
+        }
+
+        // A stack trace is actionable whatever level it was logged at
+        if (EXCEPTION.matcher(logLine).find()) {
+            return Optional.empty();
+        }
+
+        // Unknown severities are let through rather than risk dropping a real failure
+        Optional<Severity> severity = Severity.of(logLine);
+        if (severity.isPresent() && severity.get().compareTo(minimum) < 0) {
+            return Optional.of("severity");
+        }
+        return Optional.empty();
+    }
+}
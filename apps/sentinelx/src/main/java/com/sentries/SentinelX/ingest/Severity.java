@@ -0,0 +1,56 @@
+package com.sentries.SentinelX.ingest;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Log severity in ascending order, read the same way by the pre-filter and the incident scorer.
+// Synonyms from Cloud Logging, java.util.logging and log4j fold into the nearest level.
+public enum Severity {
+
+    TRACE,
+    DEBUG,
+    INFO,
+    WARNING,
+    ERROR,
+    CRITICAL;
+
+    // Cloud Logging entries carry the severity as a field, plain log lines as a level token
+    private static final Pattern SEVERITY_FIELD = Pattern.compile("\"severity\"\\s*:\\s*\"(\\w+)\"");
+
+    private static final Pattern LEVEL_TOKEN = Pattern.compile(
+            "\\b(TRACE|DEBUG|INFO|NOTICE|WARN|WARNING|ERROR|SEVERE|CRITICAL|FATAL|ALERT|EMERGENCY)\\b");
+
+    private static final Map<String, Severity> NAMES = Map.ofEntries(
+            Map.entry("TRACE", TRACE),
+            Map.entry("DEBUG", DEBUG),
+            Map.entry("INFO", INFO),
+            Map.entry("NOTICE", INFO),
+            Map.entry("WARN", WARNING),
+            Map.entry("WARNING", WARNING),
+            Map.entry("ERROR", ERROR),
+            Map.entry("SEVERE", ERROR),
+            Map.entry("CRITICAL", CRITICAL),
+            Map.entry("FATAL", CRITICAL),
+            Map.entry("ALERT", CRITICAL),
+            Map.entry("EMERGENCY", CRITICAL)
+    );
+
+    public static Optional<Severity> named(String name) {
+        return Optional.ofNullable(NAMES.get(name.toUpperCase()));
+    }
+
+    // Empty when the line names no severity, or one that isn't known
+    public static Optional<Severity> of(String logLine) {
+        Matcher field = SEVERITY_FIELD.matcher(logLine);
+        if (field.find()) {
+            return named(field.group(1));
+        }
+        Matcher token = LEVEL_TOKEN.matcher(logLine);
+        if (token.find()) {
+            return named(token.group(1));
+        }
+        return Optional.empty();
+    }
+}
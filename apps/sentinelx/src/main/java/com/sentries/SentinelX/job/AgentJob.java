@@ -0,0 +1,60 @@
+package com.sentries.SentinelX.job;
+
+import com.sentries.SentinelX.chat.ChatEvent;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Getter
+public class AgentJob {
+
+    private final String id;
+
+    private final Instant submittedAt = Instant.now();
+
+    private final List<ChatEvent> timeline = new CopyOnWriteArrayList<>();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile String summary;
+
+    private volatile String error;
+
+    AgentJob(String id) {
+        this.id = id;
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+    }
+
+    // Only tool activity goes on the timeline; the agent's text ends up in the summary
+    void record(ChatEvent chatEvent) {
+        if (!ChatEvent.TEXT.equals(chatEvent.type())) {
+            timeline.add(chatEvent);
+        }
+    }
+
+    void succeeded(String summary) {
+        this.summary = summary;
+        finishedAt = Instant.now();
+        status = JobStatus.SUCCEEDED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = JobStatus.FAILED;
+    }
+
+    boolean isFinished() {
+        return finishedAt != null;
+    }
+}
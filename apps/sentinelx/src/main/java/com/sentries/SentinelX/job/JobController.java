@@ -0,0 +1,49 @@
+package com.sentries.SentinelX.job;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("api/v1/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+
+    @Value("${sentinelx.jobs.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @PostMapping
+    public ResponseEntity<AgentJob> submit(@RequestBody JobRequest request) {
+        if (request.logs() == null || request.logs().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            AgentJob job = jobService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/v1/jobs/" + job.getId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .build();
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AgentJob> status(@PathVariable String jobId) {
+        return ResponseEntity.of(jobService.find(jobId));
+    }
+}
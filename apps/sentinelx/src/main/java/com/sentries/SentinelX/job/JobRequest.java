@@ -0,0 +1,7 @@
+package com.sentries.SentinelX.job;
+
+import java.util.List;
+
+// service is optional and defaults to the first configured service
+public record JobRequest(List<String> logs, String service) {
+}
@@ -0,0 +1,102 @@
+package com.sentries.SentinelX.job;
+
+import com.sentries.SentinelX.chat.ChatService;
+import com.sentries.SentinelX.execution.ExecutionMode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class JobService {
+
+    private final ChatService chatService;
+
+    private final ExecutionMode executionMode;
+
+    @Value("${sentinelx.jobs.workers:2}")
+    private int workers;
+
+    @Value("${sentinelx.jobs.queue-depth:20}")
+    private int queueDepth;
+
+    @Value("${sentinelx.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, AgentJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // AbortPolicy: a full queue rejects the job so the caller can answer 429
+        executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                executionMode.threadFactory("sentinelx-job-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public AgentJob submit(JobRequest jobRequest) throws RejectedExecutionException {
+
+        // Registered first, so a job that starts and finishes right away can still be found
+        AgentJob job = new AgentJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, jobRequest));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+
+        log.info("Job {} queued with {} log lines, queue depth: {}",
+                job.getId(), jobRequest.logs().size(), executor.getQueue().size());
+        return job;
+    }
+
+    public Optional<AgentJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retentionMinutes, ChronoUnit.MINUTES);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private void run(AgentJob job, JobRequest jobRequest) {
+        job.started();
+        try {
+            job.succeeded(chatService.converse(jobRequest.service(), jobRequest.logs(), job::record));
+            log.info("Job {} succeeded", job.getId());
+        } catch (Exception e) {
+            log.error("Job {} failed", job.getId(), e);
+            job.failed(e.getMessage());
+        }
+    }
+}
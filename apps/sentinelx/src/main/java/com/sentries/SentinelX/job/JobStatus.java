@@ -0,0 +1,8 @@
+package com.sentries.SentinelX.job;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,133 @@
+package com.sentries.SentinelX.metrics;
+
+import com.google.adk.events.Event;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.reactivex.rxjava3.core.Flowable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class AgentMetrics {
+
+    // MCP server behind each tool, so latency can be broken down by GitHub, Gmail and Jira
+    private static final Map<String, String> TOOL_SERVERS = Map.of(
+            "createBranch", "github",
+            "getFileContent", "github",
+            "updateFileContent", "github",
+            "commitFiles", "github",
+            "applyPatch", "github",
+            "createPullRequest", "github",
+            "mergePullRequest", "github",
+            "sendEmail", "gmail",
+            "sendEmailToRecipient", "gmail",
+            "createStory", "jira"
+    );
+
+    private final MeterRegistry meterRegistry;
+
+    // Records run latency, model turns, tool calls and token usage for one agent run
+    public Flowable<Event> instrument(Flowable<Event> events, String source) {
+        return Flowable.defer(() -> {
+            RunObserver observer = new RunObserver(source);
+            return events
+                    .doOnNext(observer::onEvent)
+                    .doOnComplete(() -> observer.finish("success"))
+                    .doOnError(error -> observer.finish("error"))
+                    .doOnCancel(() -> observer.finish("cancelled"));
+        });
+    }
+
+    // Also used for tool calls SentinelX makes itself, outside the agent's turns
+    public void recordToolCall(String tool, Map<String, Object> result, long nanos) {
+        boolean failed = result.containsKey("error") || "error".equals(result.get("status"));
+
+        Timer.builder("sentinelx.agent.tool.calls")
+                .description("Latency of MCP tool calls, whether the agent or SentinelX made them")
+                .tag("tool", tool)
+                .tag("server", TOOL_SERVERS.getOrDefault(tool, "other"))
+                .tag("outcome", failed ? "error" : "success")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private final class RunObserver {
+
+        private final String source;
+
+        private final long startedAt = System.nanoTime();
+
+        // Start time of each tool call in flight, keyed by call id
+        private final Map<String, Long> pendingCalls = new HashMap<>();
+
+        private int turns;
+
+        private boolean finished;
+
+        private RunObserver(String source) {
+            this.source = source;
+        }
+
+        private void onEvent(Event event) {
+            long now = System.nanoTime();
+
+            event.functionCalls().forEach(call ->
+                    pendingCalls.put(call.id().orElse(call.name().orElse("")), now));
+
+            event.functionResponses().forEach(response -> {
+                String tool = response.name().orElse("unknown");
+                Long calledAt = pendingCalls.remove(response.id().orElse(tool));
+                if (calledAt == null) {
+                    return;
+                }
+                recordToolCall(tool, response.response().orElse(Map.of()), now - calledAt);
+            });
+
+            // Every event without tool results comes from a model response
+            if (event.functionResponses().isEmpty() && !"user".equals(event.author())) {
+                turns++;
+            }
+
+            event.usageMetadata().ifPresent(usage -> {
+                usage.promptTokenCount().ifPresent(count -> tokens("prompt").increment(count));
+                usage.candidatesTokenCount().ifPresent(count -> tokens("response").increment(count));
+            });
+        }
+
+        private void finish(String outcome) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+
+            Timer.builder("sentinelx.agent.run")
+                    .description("End-to-end latency of agent runs")
+                    .tag("source", source)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+            DistributionSummary.builder("sentinelx.agent.model.turns")
+                    .description("Model turns per agent run")
+                    .tag("source", source)
+                    .register(meterRegistry)
+                    .record(turns);
+        }
+
+        private Counter tokens(String type) {
+            return Counter.builder("sentinelx.agent.tokens")
+                    .description("Prompt and response tokens used by agent runs")
+                    .tag("source", source)
+                    .tag("type", type)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.sentries.SentinelX.notification;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sentries.SentinelX.chat.ChatEvent;
+import com.sentries.SentinelX.execution.ExecutionMode;
+import com.sentries.SentinelX.incident.IncidentOutcome;
+import com.sentries.SentinelX.metrics.AgentMetrics;
+import com.sentries.SentinelX.replay.ReplayHarness;
+import com.sentries.SentinelX.triage.Triage;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientStreamableHttpTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.reactivex.rxjava3.core.Flowable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Raises the Jira story and sends the stakeholder email once the agent has opened a hotfix PR,
+// calling the Jira and Gmail MCP servers directly instead of spending two more model turns.
+// Incidents that triage keeps away from the hotfix agent are escalated the same way.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HotfixNotifier {
+
+    public static final String AUTHOR = "sentinelx";
+
+    private static final String PULL_REQUEST_TOOL = "createPullRequest";
+
+    private static final String STORY_TOOL = "createStory";
+
+    private static final String EMAIL_TOOL = "sendEmail";
+
+    private final AgentMetrics agentMetrics;
+
+    private final ReplayHarness replayHarness;
+
+    private final ObjectMapper objectMapper;
+
+    private final ExecutionMode executionMode;
+
+    @Value("${jira.mcp.server.url}")
+    private String jiraMcpServerUrl;
+
+    @Value("${gmail.mcp.server.url}")
+    private String gmailMcpServerUrl;
+
+    @Value("${sentinelx.notify.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sentinelx.notify.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    @Value("${sentinelx.notify.email-template:templates/hotfix-email.html}")
+    private String emailTemplatePath;
+
+    @Value("${sentinelx.notify.escalation-template:templates/escalation-email.html}")
+    private String escalationTemplatePath;
+
+    private String emailTemplate;
+
+    private String escalationTemplate;
+
+    // One initialized client per MCP server, reused across incidents
+    private final Map<String, McpSyncClient> clients = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        emailTemplate = template(emailTemplatePath);
+        escalationTemplate = template(escalationTemplatePath);
+    }
+
+    @PreDestroy
+    public void close() {
+        clients.values().forEach(McpSyncClient::closeGracefully);
+    }
+
+    // Passes the agent's events through and, when the run opened a pull request without raising
+    // a story itself, appends the story and email calls as tool events of their own
+    public Flowable<ChatEvent> afterPullRequest(Flowable<ChatEvent> chatEvents) {
+        if (!enabled) {
+            return chatEvents;
+        }
+        return Flowable.defer(() -> {
+            PullRequestTracker tracker = new PullRequestTracker();
+            return chatEvents
+                    .doOnNext(tracker::observe)
+                    .concatWith(Flowable.defer(() -> tracker.needsNotification()
+                            ? Flowable.fromCallable(() -> notify(tracker))
+                                    .subscribeOn(executionMode.scheduler())
+                                    .concatMapIterable(events -> events)
+                            : Flowable.empty()));
+        });
+    }
+
+    // When false, the agent raises stories and emails with its own tools
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Raises the story and email for a configuration or unfixable incident, returning the calls
+    // as tool events. Nothing is raised while notifications are disabled.
+    public List<ChatEvent> escalate(String service, Triage triage) {
+        if (!enabled) {
+            return List.of();
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("service", service);
+        values.put("classification", triage.classification().name());
+        values.put("title", triage.title());
+        values.put("summary", triage.summary());
+
+        List<ChatEvent> chatEvents = raise(
+                "[" + service + "] " + triage.title(),
+                triage.summary() + "\n\nClassification: " + triage.classification() + "\nService: " + service,
+                "Production incident needs attention: " + triage.title(),
+                escalationTemplate,
+                values);
+        log.info("Escalated {} incident in {}: {}", triage.classification(), service, triage.title());
+        return chatEvents;
+    }
+
+    private List<ChatEvent> notify(PullRequestTracker pullRequest) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("title", pullRequest.title);
+        values.put("description", pullRequest.description);
+        values.put("pullRequestUrl", pullRequest.url);
+        values.put("branchName", pullRequest.branchName);
+
+        List<ChatEvent> chatEvents = raise(
+                pullRequest.title,
+                pullRequest.description + "\n\nPull request: " + pullRequest.url + "\nBranch: " + pullRequest.branchName,
+                "Hotfix raised: " + pullRequest.title,
+                emailTemplate,
+                values);
+        log.info("Notified stakeholders of {}", pullRequest.url);
+        return chatEvents;
+    }
+
+    private List<ChatEvent> raise(String summary, String description, String subject, String template,
+                                  Map<String, String> values) {
+        List<ChatEvent> chatEvents = new ArrayList<>();
+
+        Map<String, Object> storyArgs = new LinkedHashMap<>();
+        storyArgs.put("summary", summary);
+        storyArgs.put("description", description);
+        Map<String, Object> story = call(jiraMcpServerUrl, STORY_TOOL, storyArgs, chatEvents);
+
+        // The email goes out even when Jira is down, just without the story reference
+        Object jiraKey = story.get("issueKey");
+        values.put("jiraKey", jiraKey == null ? "not created" : jiraKey.toString());
+        Map<String, Object> emailArgs = new LinkedHashMap<>();
+        emailArgs.put("subject", subject);
+        emailArgs.put("content", render(template, values));
+        call(gmailMcpServerUrl, EMAIL_TOOL, emailArgs, chatEvents);
+
+        return chatEvents;
+    }
+
+    private Map<String, Object> call(String serverUrl, String tool, Map<String, Object> args, List<ChatEvent> chatEvents) {
+        chatEvents.add(new ChatEvent(ChatEvent.TOOL_CALL, AUTHOR, null, tool, args));
+
+        long startedAt = System.nanoTime();
+        Map<String, Object> result;
+        try {
+            result = replayHarness.isReplaying()
+                    ? replayHarness.callTool(tool, args)
+                    : callMcp(serverUrl, tool, args);
+        } catch (RuntimeException e) {
+            log.warn("{} failed: {}", tool, e.getMessage());
+            result = Map.of("status", "error", "message", String.valueOf(e.getMessage()));
+        }
+        agentMetrics.recordToolCall(tool, result, System.nanoTime() - startedAt);
+
+        chatEvents.add(new ChatEvent(ChatEvent.TOOL_RESULT, AUTHOR, null, tool, result));
+        return result;
+    }
+
+    private Map<String, Object> callMcp(String serverUrl, String tool, Map<String, Object> args) {
+        McpSchema.CallToolResult result = client(serverUrl).callTool(new McpSchema.CallToolRequest(tool, args));
+
+        String text = result.content().stream()
+                .filter(McpSchema.TextContent.class::isInstance)
+                .map(content -> ((McpSchema.TextContent) content).text())
+                .collect(Collectors.joining());
+        if (Boolean.TRUE.equals(result.isError())) {
+            return Map.of("status", "error", "message", text);
+        }
+        try {
+            return objectMapper.readValue(text, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (IOException e) {
+            return Map.of("result", text);
+        }
+    }
+
+    // Connects outside computeIfAbsent, which would hold a map lock (and pin a virtual thread)
+    // for the whole handshake. A client that loses the race is closed.
+    private McpSyncClient client(String serverUrl) {
+        McpSyncClient client = clients.get(serverUrl);
+        if (client != null) {
+            return client;
+        }
+        McpSyncClient connected = connect(serverUrl);
+        client = clients.putIfAbsent(serverUrl, connected);
+        if (client != null) {
+            connected.closeGracefully();
+            return client;
+        }
+        return connected;
+    }
+
+    private McpSyncClient connect(String serverUrl) {
+        URI uri = URI.create(serverUrl);
+        String baseUri = uri.getScheme() + "://" + uri.getRawAuthority();
+        HttpClientStreamableHttpTransport transport = HttpClientStreamableHttpTransport.builder(baseUri)
+                .endpoint(uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/mcp" : uri.getRawPath())
+                .build();
+        McpSyncClient client = McpClient.sync(transport)
+                .requestTimeout(Duration.ofSeconds(timeoutSeconds))
+                .build();
+        client.initialize();
+        return client;
+    }
+
+    private static String render(String template, Map<String, String> values) {
+        String html = template;
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            html = html.replace("{{" + value.getKey() + "}}", HtmlUtils.htmlEscape(String.valueOf(value.getValue())));
+        }
+        return html;
+    }
+
+    private static String template(String path) throws IOException {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Follows one run's events for the PR arguments and URL, and for the agent notifying on its own
+    private static final class PullRequestTracker {
+
+        private String branchName = "";
+
+        private String title = "";
+
+        private String description = "";
+
+        private String url;
+
+        private boolean notifiedByAgent;
+
+        private void observe(ChatEvent chatEvent) {
+            if (STORY_TOOL.equals(chatEvent.tool()) || EMAIL_TOOL.equals(chatEvent.tool())) {
+                notifiedByAgent = true;
+            }
+            if (!PULL_REQUEST_TOOL.equals(chatEvent.tool()) || chatEvent.payload() == null) {
+                return;
+            }
+            if (ChatEvent.TOOL_CALL.equals(chatEvent.type())) {
+                branchName = String.valueOf(chatEvent.payload().getOrDefault("branchName", ""));
+                title = String.valueOf(chatEvent.payload().getOrDefault("title", ""));
+                description = String.valueOf(chatEvent.payload().getOrDefault("description", ""));
+            } else if (ChatEvent.TOOL_RESULT.equals(chatEvent.type())) {
+                url = IncidentOutcome.pullRequestUrl(chatEvent.payload());
+            }
+        }
+
+        private boolean needsNotification() {
+            return url != null && !notifiedByAgent;
+        }
+    }
+}
@@ -1,76 +1,179 @@
 package com.sentries.SentinelX.pubsub;
 
-import com.google.cloud.pubsub.v1.stub.SubscriberStub;
-import com.google.cloud.pubsub.v1.stub.SubscriberStubSettings;
-import com.google.pubsub.v1.*;
-import com.sentries.SentinelX.chat.ChatService;
+import com.google.api.gax.batching.FlowControlSettings;
+import com.google.api.gax.core.InstantiatingExecutorProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.GrpcTransportChannel;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.cloud.pubsub.v1.AckReplyConsumer;
+import com.google.cloud.pubsub.v1.Subscriber;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.pubsub.v1.PubsubMessage;
+import com.google.pubsub.v1.SubscriptionName;
+import com.sentries.SentinelX.config.ServiceRegistry;
+import com.sentries.SentinelX.execution.ExecutionMode;
+import com.sentries.SentinelX.ingest.AckHandle;
+import com.sentries.SentinelX.ingest.LogDispatcher;
+import com.sentries.SentinelX.ingest.LogMessage;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PubSubService {
 
-    private final SubscriptionName subscriptionName;
+    private final ServiceRegistry serviceRegistry;
 
-    private final ChatService chatService;
+    private final LogDispatcher logDispatcher;
 
-    @Scheduled(fixedRate = 120000) // 2 minutes
-    public void pullMessages() {
+    private final ExecutionMode executionMode;
 
-        try (SubscriberStub subscriber = SubscriberStubSettings
-                .newBuilder()
-                .build()
-                .createStub()) {
+    @Value("${spring.cloud.gcp.project-id}")
+    private String projectId;
 
-            PullRequest pullRequest =
-                    PullRequest.newBuilder()
-                            .setSubscription(subscriptionName.toString())
-                            .setMaxMessages(1000)
-                            .build();
+    @Value("${gcp.pubsub.enabled:true}")
+    private boolean enabled;
 
-            PullResponse response = subscriber.pullCallable().call(pullRequest);
+    @Value("${gcp.pubsub.flow-control.max-outstanding-messages:1000}")
+    private long maxOutstandingMessages;
 
-            List<String> receivedMessages = new ArrayList<>();
+    @Value("${gcp.pubsub.flow-control.max-outstanding-bytes:104857600}")
+    private long maxOutstandingBytes;
 
-            for (ReceivedMessage message : response.getReceivedMessagesList()) {
+    @Value("${gcp.pubsub.parallel-pull-count:1}")
+    private int parallelPullCount;
 
-                String data = message.getMessage().getData().toStringUtf8();
-                String messageId = message.getMessage().getMessageId();
+    // Threads running the message callback, which may block on a full dispatch queue
+    @Value("${gcp.pubsub.executor-threads:5}")
+    private int executorThreads;
 
-                log.info("Received Message from Topic");
+    @Value("${gcp.pubsub.handoff-timeout-ms:30000}")
+    private long handoffTimeoutMs;
 
-                receivedMessages.add(data);
+    // Unacked messages have their leases extended while the agent works on them, up to this limit
+    @Value("${gcp.pubsub.max-ack-extension-minutes:60}")
+    private long maxAckExtensionMinutes;
 
-                // ACK message
-                AcknowledgeRequest ackRequest =
-                        AcknowledgeRequest.newBuilder()
-                                .setSubscription(subscriptionName.toString())
-                                .addAckIds(message.getAckId())
-                                .build();
+    @Value("${gcp.pubsub.max-ack-extension-step-seconds:600}")
+    private long maxAckExtensionStepSeconds;
 
-                subscriber.acknowledgeCallable().call(ackRequest);
+    // host:port of the Pub/Sub emulator, used instead of the real service when set
+    @Value("${gcp.pubsub.emulator-host:}")
+    private String emulatorHost;
+
+    // One streaming subscriber per monitored service, so every service is pulled independently
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private ManagedChannel emulatorChannel;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Pub/Sub consumer disabled");
+            return;
+        }
+
+        if (!emulatorHost.isBlank()) {
+            log.info("Using Pub/Sub emulator at {}", emulatorHost);
+            emulatorChannel = ManagedChannelBuilder.forTarget(emulatorHost).usePlaintext().build();
+        }
+
+        serviceRegistry.services().forEach((service, settings) ->
+                subscribers.add(subscribe(service, SubscriptionName.of(projectId, settings.subscription()))));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(Subscriber::stopAsync);
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.awaitTerminated(30, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Timed out waiting for Pub/Sub subscriber to stop");
             }
+        }
+        if (emulatorChannel != null) {
+            emulatorChannel.shutdown();
+        }
+    }
 
-            log.info("recieved messages size: {}", receivedMessages.size());
-            processMessage(receivedMessages);
+    private Subscriber subscribe(String service, SubscriptionName subscriptionName) {
+        Subscriber.Builder builder = Subscriber
+                .newBuilder(subscriptionName, (message, consumer) -> receiveMessage(service, message, consumer))
+                .setParallelPullCount(parallelPullCount)
+                .setMaxAckExtensionPeriodDuration(Duration.ofMinutes(maxAckExtensionMinutes))
+                .setMaxDurationPerAckExtensionDuration(Duration.ofSeconds(maxAckExtensionStepSeconds))
+                .setFlowControlSettings(FlowControlSettings.newBuilder()
+                        .setMaxOutstandingElementCount(maxOutstandingMessages)
+                        .setMaxOutstandingRequestBytes(maxOutstandingBytes)
+                        .build());
+
+        if (executionMode.isVirtual()) {
+            builder.setExecutorProvider(InstantiatingExecutorProvider.newBuilder()
+                    .setExecutorThreadCount(executorThreads * parallelPullCount)
+                    .setThreadFactory(executionMode.threadFactory("sentinelx-pubsub-" + service + "-"))
+                    .build());
+        }
 
-        } catch (Exception e) {
-            log.error("Error pulling messages", e);
+        if (emulatorChannel != null) {
+            builder.setChannelProvider(FixedTransportChannelProvider.create(GrpcTransportChannel.create(emulatorChannel)))
+                    .setCredentialsProvider(NoCredentialsProvider.create());
         }
+
+        Subscriber subscriber = builder.build();
+        subscriber.addListener(new Subscriber.Listener() {
+            @Override
+            public void failed(Subscriber.State from, Throwable failure) {
+                log.error("Pub/Sub subscriber for {} failed from state {}", service, from, failure);
+            }
+        }, MoreExecutors.directExecutor());
+        subscriber.startAsync().awaitRunning();
+
+        log.info("Streaming subscriber for {} started on {}", service, subscriptionName);
+        return subscriber;
     }
 
-    private void processMessage(List<String> data) {
+    public void receiveMessage(String service, PubsubMessage message, AckReplyConsumer consumer) {
+
+        String data = message.getData().toStringUtf8();
 
-        log.info("Trigger Called from Agent");
-        chatService.converse(data);
-        log.info("Agent Triggered Successfully with Logs");
+        log.debug("Received Message {} from Topic", message.getMessageId());
 
+        // The ack is deferred until the agent has processed the message. The subscriber batches
+        // the acks onto its stream and keeps extending the lease of anything still in flight.
+        LogMessage logMessage = new LogMessage(service, data, new AckHandle() {
+            @Override
+            public void ack() {
+                consumer.ack();
+            }
+
+            @Override
+            public void nack() {
+                consumer.nack();
+            }
+        });
+
+        try {
+            if (!logDispatcher.offer(logMessage, handoffTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("Dispatch queue full, redelivering message {}", message.getMessageId());
+                consumer.nack();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            consumer.nack();
+        }
     }
 }
@@ -0,0 +1,14 @@
+package com.sentries.SentinelX.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+
+// One recorded agent run: the model's response for each turn, in order, and the result
+// every tool call returned.
+public record Cassette(String key, List<JsonNode> modelResponses, List<ToolExchange> toolExchanges) {
+
+    public record ToolExchange(String tool, Map<String, Object> args, Map<String, Object> result) {
+    }
+}
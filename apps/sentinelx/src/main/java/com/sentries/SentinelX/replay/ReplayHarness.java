@@ -0,0 +1,143 @@
+package com.sentries.SentinelX.replay;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.events.Event;
+import com.google.adk.models.BaseLlm;
+import com.google.adk.tools.BaseTool;
+import io.reactivex.rxjava3.core.Flowable;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Records agent runs (model responses and MCP tool results) into cassettes, and replays them
+// through a stand-in model and stand-in tools so the pipeline can run without Gemini or MCP servers.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReplayHarness {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${sentinelx.replay.mode:off}")
+    private ReplayMode mode;
+
+    @Value("${sentinelx.replay.dir:replay}")
+    private String dir;
+
+    // Simulated model latency per turn while replaying
+    @Value("${sentinelx.replay.model-latency-ms:0}")
+    private long modelLatencyMs;
+
+    private List<Cassette> cassettes = List.of();
+
+    @PostConstruct
+    public void init() {
+        if (mode != ReplayMode.REPLAY) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(Path.of(dir))) {
+            List<Cassette> loaded = new ArrayList<>();
+            for (Path file : files.filter(path -> path.toString().endsWith(".json")).sorted().toList()) {
+                loaded.add(objectMapper.readValue(file.toFile(), Cassette.class));
+            }
+            cassettes = loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load replay cassettes from " + dir, e);
+        }
+        if (cassettes.isEmpty()) {
+            throw new IllegalStateException("Replay mode needs at least one cassette in " + dir);
+        }
+        log.info("Replaying {} cassettes from {}", cassettes.size(), dir);
+    }
+
+    public boolean isReplaying() {
+        return mode == ReplayMode.REPLAY;
+    }
+
+    public BaseLlm model(String modelName) {
+        return new ReplayLlm(modelName, cassettes, modelLatencyMs);
+    }
+
+    public List<BaseTool> tools() {
+        Map<String, List<Cassette.ToolExchange>> byTool = cassettes.stream()
+                .flatMap(cassette -> cassette.toolExchanges().stream())
+                .collect(Collectors.groupingBy(Cassette.ToolExchange::tool, LinkedHashMap::new, Collectors.toList()));
+        return byTool.entrySet().stream()
+                .<BaseTool>map(entry -> new ReplayTool(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    // Answers a tool call made outside the agent the same way the stand-in tools do
+    public Map<String, Object> callTool(String tool, Map<String, Object> args) {
+        return tools().stream()
+                .filter(replayTool -> replayTool.name().equals(tool))
+                .findFirst()
+                .map(replayTool -> replayTool.runAsync(args, null).blockingGet())
+                .orElse(Map.of("status", "success"));
+    }
+
+    // Writes the run to a cassette once it completes; a no-op unless recording
+    public Flowable<Event> record(Flowable<Event> events, String question) {
+        if (mode != ReplayMode.RECORD) {
+            return events;
+        }
+        return Flowable.defer(() -> {
+            List<JsonNode> modelResponses = new ArrayList<>();
+            List<Cassette.ToolExchange> toolExchanges = new ArrayList<>();
+            Map<String, Map<String, Object>> pendingArgs = new HashMap<>();
+
+            return events
+                    .doOnNext(event -> {
+                        event.functionCalls().forEach(call -> pendingArgs.put(
+                                call.id().orElse(call.name().orElse("")), call.args().orElse(Map.of())));
+                        event.functionResponses().forEach(response -> {
+                            String tool = response.name().orElse("");
+                            toolExchanges.add(new Cassette.ToolExchange(
+                                    tool,
+                                    pendingArgs.getOrDefault(response.id().orElse(tool), Map.of()),
+                                    response.response().orElse(Map.of())));
+                        });
+                        if (event.functionResponses().isEmpty() && !"user".equals(event.author())
+                                && event.content().isPresent()) {
+                            modelResponses.add(objectMapper.readTree(event.content().get().toJson()));
+                        }
+                    })
+                    .doOnComplete(() -> write(new Cassette(key(question), modelResponses, toolExchanges)));
+        });
+    }
+
+    private void write(Cassette cassette) throws IOException {
+        Path file = Path.of(dir).resolve(cassette.key() + ".json");
+        Files.createDirectories(file.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), cassette);
+        log.info("Recorded cassette {}", file);
+    }
+
+    static String key(String question) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(question.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
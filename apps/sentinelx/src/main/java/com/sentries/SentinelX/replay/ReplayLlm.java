@@ -0,0 +1,98 @@
+package com.sentries.SentinelX.replay;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Blob;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.sentries.SentinelX.chat.ChatEvent;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Stand-in model that answers from recorded cassettes. It keeps no state: the cassette is
+// chosen from the first user message and the turn from how many model turns the request holds.
+class ReplayLlm extends BaseLlm {
+
+    private final List<Cassette> cassettes;
+
+    private final long latencyMs;
+
+    ReplayLlm(String model, List<Cassette> cassettes, long latencyMs) {
+        super(model);
+        this.cassettes = cassettes;
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+
+        String question = llmRequest.contents().stream()
+                .filter(content -> content.role().filter("user"::equals).isPresent())
+                .findFirst()
+                .map(ChatEvent::text)
+                .orElse("");
+        long turn = llmRequest.contents().stream()
+                .filter(content -> content.role().filter("model"::equals).isPresent())
+                .count();
+
+        Cassette cassette = select(ReplayHarness.key(question));
+        Content response = turn < cassette.modelResponses().size()
+                ? Content.fromJson(cassette.modelResponses().get((int) turn).toString())
+                : Content.builder().role("model").parts(Part.fromText("No further actions.")).build();
+
+        Flowable<LlmResponse> responses = Flowable.just(LlmResponse.builder().content(response).build());
+        return latencyMs > 0 ? responses.delay(latencyMs, TimeUnit.MILLISECONDS) : responses;
+    }
+
+    // Cassettes hold request/response turns only, so a live connection fails on first use
+    @Override
+    public BaseLlmConnection connect(LlmRequest llmRequest) {
+        IllegalStateException unsupported = new IllegalStateException(
+                "Replay mode answers generateContent from cassettes; live connections to " + model() + " are not recorded");
+        return new BaseLlmConnection() {
+            @Override
+            public Completable sendHistory(List<Content> history) {
+                return Completable.error(unsupported);
+            }
+
+            @Override
+            public Completable sendContent(Content content) {
+                return Completable.error(unsupported);
+            }
+
+            @Override
+            public Completable sendRealtime(Blob blob) {
+                return Completable.error(unsupported);
+            }
+
+            @Override
+            public Flowable<LlmResponse> receive() {
+                return Flowable.error(unsupported);
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void close(Throwable throwable) {
+            }
+        };
+    }
+
+    // Questions that were never recorded still map to a stable cassette, so synthetic logs
+    // replay deterministically
+    private Cassette select(String key) {
+        for (Cassette cassette : cassettes) {
+            if (cassette.key().equals(key)) {
+                return cassette;
+            }
+        }
+        return cassettes.get(Math.floorMod(key.hashCode(), cassettes.size()));
+    }
+}
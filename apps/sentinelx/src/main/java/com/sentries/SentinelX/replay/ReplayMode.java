@@ -0,0 +1,7 @@
+package com.sentries.SentinelX.replay;
+
+public enum ReplayMode {
+    OFF,
+    RECORD,
+    REPLAY
+}
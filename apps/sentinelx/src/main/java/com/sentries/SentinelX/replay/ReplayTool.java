@@ -0,0 +1,43 @@
+package com.sentries.SentinelX.replay;
+
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import com.google.genai.types.FunctionDeclaration;
+import com.google.genai.types.Schema;
+import io.reactivex.rxjava3.core.Single;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Stand-in for an MCP tool that returns the recorded result for the same arguments, or the
+// first recorded result of the tool when those arguments were never seen.
+class ReplayTool extends BaseTool {
+
+    private final List<Cassette.ToolExchange> exchanges;
+
+    ReplayTool(String name, List<Cassette.ToolExchange> exchanges) {
+        super(name, "Replays recorded results of the " + name + " tool");
+        this.exchanges = exchanges;
+    }
+
+    @Override
+    public Optional<FunctionDeclaration> declaration() {
+        return Optional.of(FunctionDeclaration.builder()
+                .name(name())
+                .description(description())
+                .parameters(Schema.builder().type("OBJECT").build())
+                .build());
+    }
+
+    @Override
+    public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
+        Map<String, Object> result = exchanges.stream()
+                .filter(exchange -> exchange.args().equals(args))
+                .findFirst()
+                .or(() -> exchanges.stream().findFirst())
+                .map(Cassette.ToolExchange::result)
+                .orElse(Map.of("status", "success"));
+        return Single.just(result);
+    }
+}
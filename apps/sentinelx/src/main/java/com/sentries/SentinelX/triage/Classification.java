@@ -0,0 +1,12 @@
+package com.sentries.SentinelX.triage;
+
+public enum Classification {
+
+    CODE_FIX,
+
+    CONFIGURATION,
+
+    NOT_FIXABLE,
+
+    NO_ISSUE
+}
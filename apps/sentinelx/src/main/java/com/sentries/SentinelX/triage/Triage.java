@@ -0,0 +1,9 @@
+package com.sentries.SentinelX.triage;
+
+public record Triage(Classification classification, String title, String summary) {
+
+    // Used whenever triage can't decide, so the full agent gets to look at the logs
+    public static Triage escalate(String reason) {
+        return new Triage(Classification.CODE_FIX, "", reason);
+    }
+}
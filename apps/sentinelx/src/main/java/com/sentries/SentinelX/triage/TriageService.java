@@ -0,0 +1,138 @@
+package com.sentries.SentinelX.triage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.agents.LlmAgent;
+import com.google.adk.events.Event;
+import com.google.adk.runner.InMemoryRunner;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.sentries.SentinelX.chat.ChatEvent;
+import com.sentries.SentinelX.chat.ModelFactory;
+import com.sentries.SentinelX.execution.ExecutionMode;
+import com.sentries.SentinelX.metrics.AgentMetrics;
+import com.sentries.SentinelX.replay.ReplayHarness;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reactivex.rxjava3.core.Flowable;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// First tier of the agent: a small model without tools sorts an incident into code fix,
+// configuration, not fixable or no issue in a single turn. Only code fixes go on to the
+// tool-using hotfix agent and its larger model.
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TriageService {
+
+    private static final String NAME = "SentinelX-triage";
+
+    private final ModelFactory modelFactory;
+
+    private final AgentMetrics agentMetrics;
+
+    private final ExecutionMode executionMode;
+
+    private final ReplayHarness replayHarness;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${sentinelx.triage.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sentinelx.models.triage:gemini-2.5-flash-lite}")
+    private String model;
+
+    private InMemoryRunner runner;
+
+    private ObjectMapper reader;
+
+    @PostConstruct
+    public void init() {
+        reader = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        runner = new InMemoryRunner(LlmAgent.builder()
+                .name(NAME)
+                .description("Classifies production error logs before any hotfix work starts")
+                .model(modelFactory.model(model))
+                .instruction("""
+                        You triage production error logs for an automated hotfix agent. You have no tools.
+                        Classify the incident as exactly one of:
+                        - CODE_FIX: a defect in application code that a small, safe code change can fix
+                        - CONFIGURATION: missing secrets, Secret Manager errors, environment or configuration problems
+                        - NOT_FIXABLE: a real problem that automation cannot fix safely (infrastructure, data, third parties)
+                        - NO_ISSUE: nothing actionable in the logs
+
+                        Reply with only this JSON object, without markdown:
+                        {"classification": "...", "title": "...", "summary": "..."}
+                        title is a one-line incident title. summary explains the problem, the likely root cause
+                        and the recommended remediation in a few sentences.
+                        """)
+                .build());
+    }
+
+    // Code fixes and anything triage can't classify are escalated to the hotfix agent
+    public Triage triage(String question) {
+        if (!enabled || replayHarness.isReplaying()) {
+            return Triage.escalate("");
+        }
+
+        // An unavailable triage model must not hold incidents back from the hotfix agent
+        String reply;
+        try {
+            reply = run(question);
+        } catch (RuntimeException e) {
+            // A run cancelled by its timeout stays cancelled
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            log.warn("Triage failed, escalating to the hotfix agent", e);
+            meterRegistry.counter("sentinelx.triage", "classification", "error").increment();
+            return Triage.escalate("Triage failed: " + e.getMessage());
+        }
+
+        Triage triage = parse(reply);
+        meterRegistry.counter("sentinelx.triage", "classification", triage.classification().name()).increment();
+        log.info("Triaged incident as {}: {}", triage.classification(), triage.title());
+        return triage;
+    }
+
+    private String run(String question) {
+        Session session = runner.sessionService().createSession(runner.appName(), "triage").blockingGet();
+        try {
+            Content userMsg = Content.fromParts(Part.fromText(question));
+            Flowable<Event> events = agentMetrics.instrument(
+                    runner.runAsync(session.userId(), session.id(), userMsg), "triage");
+            return executionMode.limit(events)
+                    .map(event -> event.content().map(ChatEvent::text).orElse(""))
+                    .toList()
+                    .map(texts -> String.join("", texts))
+                    .blockingGet();
+        } finally {
+            runner.sessionService().deleteSession(runner.appName(), session.userId(), session.id()).blockingAwait();
+        }
+    }
+
+    private Triage parse(String reply) {
+        String json = reply.strip();
+        int start = json.indexOf('{');
+        int end = json.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            log.warn("Triage reply is not JSON, escalating: {}", reply);
+            return Triage.escalate(reply);
+        }
+        try {
+            Triage triage = reader.readValue(json.substring(start, end + 1), Triage.class);
+            return triage.classification() == null ? Triage.escalate(triage.summary()) : triage;
+        } catch (JsonProcessingException e) {
+            log.warn("Could not parse triage reply, escalating: {}", reply);
+            return Triage.escalate(reply);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.sentries.SentinelX.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sentries.SentinelX.chat.ChatService;
+import com.sentries.SentinelX.chat.ModelFactory;
+import com.sentries.SentinelX.config.ServiceRegistry;
+import com.sentries.SentinelX.execution.ExecutionMode;
+import com.sentries.SentinelX.incident.FileClaimStore;
+import com.sentries.SentinelX.incident.FingerprintCache;
+import com.sentries.SentinelX.incident.HeavyHitters;
+import com.sentries.SentinelX.incident.IncidentExecutor;
+import com.sentries.SentinelX.incident.IncidentLedger;
+import com.sentries.SentinelX.incident.IncidentScorer;
+import com.sentries.SentinelX.incident.LogFingerprinter;
+import com.sentries.SentinelX.incident.StackTraceCompactor;
+import com.sentries.SentinelX.ingest.AckHandle;
+import com.sentries.SentinelX.ingest.LogDispatcher;
+import com.sentries.SentinelX.ingest.LogMessage;
+import com.sentries.SentinelX.ingest.RuleBasedLogFilter;
+import com.sentries.SentinelX.metrics.AgentMetrics;
+import com.sentries.SentinelX.notification.HotfixNotifier;
+import com.sentries.SentinelX.replay.ReplayHarness;
+import com.sentries.SentinelX.triage.TriageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives synthetic log batches through the dispatcher, fingerprinting and parallel agent runs
+// against replayed model and tool responses. Run with ./gradlew benchmark -Dbench.messages=...
+// The pipeline beans are wired by Spring from the properties below, as in the application.
+@Tag("benchmark")
+@SpringJUnitConfig(PipelineBenchmark.Pipeline.class)
+@TestPropertySource(properties = {
+        "sentinelx.services.shopvista-service.subscription=bench-sub",
+        "sentinelx.services.shopvista-service.path-prefix=apps/shopvista-service/",
+        "sentinelx.services.shopvista-service.max-concurrent-runs=${bench.max-concurrent-runs:8}",
+        "sentinelx.services.shopvista-service.app-packages=com.shopvista",
+        "sentinelx.replay.mode=REPLAY",
+        "sentinelx.replay.dir=src/test/resources/replay",
+        "sentinelx.replay.model-latency-ms=${bench.model-latency-ms:200}",
+        "spring.threads.virtual.enabled=${bench.virtual-threads:false}",
+        "sentinelx.agent.max-in-flight=${bench.max-concurrent-runs:8}",
+        "sentinelx.execution.platform-threads=${bench.max-concurrent-runs:8}",
+        "sentinelx.agent.max-concurrent-runs=${bench.max-concurrent-runs:8}",
+        "sentinelx.agent.run-timeout-minutes=1",
+        "sentinelx.priority.critical-endpoints=OrderService.createOrder",
+        "sentinelx.filter.benign-patterns=ClientAbortException",
+        "sentinelx.ledger.enabled=false",
+        "sentinelx.claims.file.dir=${java.io.tmpdir}/sentinelx-bench-claims",
+        "sentinelx.dispatch.queue-capacity=10000",
+        "sentinelx.dispatch.tick-ms=20",
+        "sentinelx.correlation.window-ms=100",
+        "sentinelx.correlation.max-window-ms=1000",
+        "github.mcp.server.url=http://localhost/unused",
+        "gmail.mcp.server.url=http://localhost/unused",
+        "jira.mcp.server.url=http://localhost/unused"
+})
+class PipelineBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineBenchmark.class);
+
+    private static final String SERVICE = "shopvista-service";
+
+    private static final int MESSAGES = Integer.getInteger("bench.messages", 5_000);
+
+    private static final int INCIDENT_TYPES = Integer.getInteger("bench.incident-types", 50);
+
+    @Autowired
+    private LogDispatcher logDispatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void replayedPipeline(TestReporter testReporter) throws Exception {
+
+        long[] latencies = new long[MESSAGES];
+        CountDownLatch done = new CountDownLatch(MESSAGES);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        long startedAt = System.nanoTime();
+
+        for (int i = 0; i < MESSAGES; i++) {
+            int index = i;
+            long offeredAt = System.nanoTime();
+            AckHandle ackHandle = new AckHandle() {
+                @Override
+                public void ack() {
+                    latencies[index] = System.nanoTime() - offeredAt;
+                    done.countDown();
+                }
+
+                @Override
+                public void nack() {
+                    ack();
+                }
+            };
+            logDispatcher.offer(new LogMessage(SERVICE, syntheticLog(i % INCIDENT_TYPES, i), ackHandle), 1, TimeUnit.MINUTES);
+        }
+
+        assertTrue(done.await(5, TimeUnit.MINUTES), "pipeline did not drain");
+
+        long elapsed = System.nanoTime() - startedAt;
+        long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(latencies);
+
+        Map<String, String> report = new LinkedHashMap<>();
+        report.put("messages", String.valueOf(MESSAGES));
+        report.put("incidentTypes", String.valueOf(INCIDENT_TYPES));
+        report.put("throughputPerSecond", "%.1f".formatted(MESSAGES / (elapsed / 1e9)));
+        report.put("latencyP50Ms", "%.1f".formatted(latencies[MESSAGES / 2] / 1e6));
+        report.put("latencyP99Ms", "%.1f".formatted(latencies[(int) (MESSAGES * 0.99)] / 1e6));
+        report.put("allocationMbPerSecond", "%.1f".formatted(allocated / (elapsed / 1e9) / (1024 * 1024)));
+        report.put("agentRuns", String.valueOf(
+                meterRegistry.find("sentinelx.agent.run").timers().stream().mapToLong(Timer::count).sum()));
+
+        testReporter.publishEntry(report);
+        log.info("Replayed pipeline: {}", report);
+    }
+
+    private static String syntheticLog(int incidentType, int sequence) {
+        return """
+                {"severity":"ERROR","textPayload":"Servlet.service() threw exception\\n\
+                java.lang.IllegalStateException: Order %d could not be priced for variant %d\\n\
+                \\tat com.shopvista.service.PricingService%d.price(PricingService%d.java:42)\\n\
+                \\tat com.shopvista.controller.OrderController.create(OrderController.java:30)\\n\
+                \\tat org.springframework.web.servlet.FrameworkServlet.service(FrameworkServlet.java:885)"}
+                """.formatted(sequence, incidentType, incidentType, incidentType);
+    }
+
+    // The ingest and agent pipeline without Pub/Sub, the web layer or the scheduler
+    @Configuration
+    @EnableConfigurationProperties(ServiceRegistry.class)
+    @Import({ReplayHarness.class, ExecutionMode.class, AgentMetrics.class, HotfixNotifier.class, ModelFactory.class,
+            TriageService.class, StackTraceCompactor.class, ChatService.class, LogFingerprinter.class,
+            FingerprintCache.class, HeavyHitters.class, IncidentScorer.class, IncidentExecutor.class,
+            RuleBasedLogFilter.class, IncidentLedger.class, FileClaimStore.class, LogDispatcher.class})
+    static class Pipeline {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.sentries.SentinelX.chat;
+
+import com.google.adk.runner.Runner;
+import com.google.adk.sessions.BaseSessionService;
+import com.google.adk.sessions.Session;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Single;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionRegistryTest {
+
+    private final Runner runner = mock(Runner.class);
+
+    private final BaseSessionService sessionService = mock(BaseSessionService.class);
+
+    private SessionRegistry sessionRegistry;
+
+    @BeforeEach
+    void setUp() {
+        when(runner.appName()).thenReturn("app");
+        when(runner.sessionService()).thenReturn(sessionService);
+        when(sessionService.createSession(anyString(), anyString()))
+                .thenAnswer(invocation -> Single.just(session(invocation.getArgument(1))));
+        when(sessionService.deleteSession(anyString(), anyString(), anyString())).thenReturn(Completable.complete());
+        sessionRegistry = new SessionRegistry(runner, 2, 60_000, 100);
+    }
+
+    @Test
+    void keepsSessionAcrossRequests() {
+        SessionRegistry.ChatSession first = sessionRegistry.acquire("a");
+        Session session = first.session();
+        sessionRegistry.release(first, 10);
+
+        SessionRegistry.ChatSession second = sessionRegistry.acquire("a");
+
+        assertSame(session, second.session());
+        verify(sessionService, times(1)).createSession("app", "a");
+    }
+
+    @Test
+    void releasesPermitWhenSessionCannotBeCreated() {
+        doReturn(Single.error(new IllegalStateException("session store down")))
+                .doAnswer(invocation -> Single.just(session("a")))
+                .when(sessionService).createSession("app", "a");
+
+        assertThrows(IllegalStateException.class, () -> sessionRegistry.acquire("a"));
+
+        SessionRegistry.ChatSession chatSession =
+                assertTimeoutPreemptively(Duration.ofSeconds(5), () -> sessionRegistry.acquire("a"));
+        assertEquals("a", chatSession.session().id());
+    }
+
+    @Test
+    void startsOverPastMaxChars() {
+        SessionRegistry.ChatSession chatSession = sessionRegistry.acquire("a");
+        Session session = chatSession.session();
+        sessionRegistry.release(chatSession, 101);
+
+        assertNotSame(session, sessionRegistry.acquire("a").session());
+        verify(sessionService).deleteSession("app", "a", "a");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedBeyondMaxSize() {
+        sessionRegistry.release(sessionRegistry.acquire("a"), 1);
+        sessionRegistry.release(sessionRegistry.acquire("b"), 1);
+        sessionRegistry.release(sessionRegistry.acquire("a"), 1);
+
+        sessionRegistry.release(sessionRegistry.acquire("c"), 1);
+
+        verify(sessionService).deleteSession("app", "b", "b");
+        verify(sessionService, never()).deleteSession("app", "a", "a");
+    }
+
+    @Test
+    void deletesSessionInUseOnRelease() {
+        SessionRegistry.ChatSession held = sessionRegistry.acquire("a");
+        sessionRegistry.release(sessionRegistry.acquire("b"), 1);
+        sessionRegistry.release(sessionRegistry.acquire("c"), 1);
+        verify(sessionService, never()).deleteSession("app", "a", "a");
+
+        sessionRegistry.release(held, 1);
+
+        verify(sessionService).deleteSession("app", "a", "a");
+    }
+
+    private static Session session(String id) {
+        Session session = mock(Session.class);
+        when(session.id()).thenReturn(id);
+        when(session.userId()).thenReturn(id);
+        return session;
+    }
+}
@@ -0,0 +1,60 @@
+package com.sentries.SentinelX.incident;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    @Test
+    void neverUndercounts() {
+        // A narrow sketch, so that keys share counters
+        CountMinSketch sketch = new CountMinSketch(16, 3);
+        Map<Long, Long> counts = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            long key = random.nextInt(200);
+            counts.merge(key, 1L, Long::sum);
+            assertTrue(sketch.add(key) >= counts.get(key));
+        }
+
+        counts.forEach((key, count) -> assertTrue(sketch.estimate(key) >= count));
+    }
+
+    @Test
+    void countsExactlyWithoutCollisions() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 7; i++) {
+            sketch.add(1L);
+        }
+        sketch.add(2L);
+
+        assertEquals(7, sketch.estimate(1L));
+        assertEquals(1, sketch.estimate(2L));
+        assertEquals(0, sketch.estimate(3L));
+    }
+
+    @Test
+    void halveAgesEveryCount() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 9; i++) {
+            sketch.add(1L);
+        }
+        sketch.add(2L);
+
+        sketch.halve();
+
+        assertEquals(4, sketch.estimate(1L));
+        assertEquals(0, sketch.estimate(2L));
+    }
+
+    @Test
+    void sizeIsFixedByWidthAndDepth() {
+        assertEquals(1024 * 4 * Long.BYTES, new CountMinSketch(1024, 4).sizeInBytes());
+    }
+}
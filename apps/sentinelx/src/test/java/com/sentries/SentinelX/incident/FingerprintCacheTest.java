@@ -0,0 +1,75 @@
+package com.sentries.SentinelX.incident;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FingerprintCacheTest {
+
+    @Test
+    void suppressesRepeatsWithinTtl() {
+        FingerprintCache cache = cache(10, 30);
+
+        assertTrue(cache.tryAcquire(fingerprint("a1")));
+        assertFalse(cache.tryAcquire(fingerprint("a1")));
+        assertFalse(cache.tryAcquire(fingerprint("a1")));
+        assertTrue(cache.tryAcquire(fingerprint("b2")));
+
+        Map<String, Object> stats = cache.stats(10);
+        assertEquals(2L, stats.get("admitted"));
+        assertEquals(2L, stats.get("suppressed"));
+        List<?> top = (List<?>) stats.get("topSuppressed");
+        assertEquals(1, top.size());
+        assertEquals("a1", ((Map<?, ?>) top.get(0)).get("fingerprint"));
+    }
+
+    @Test
+    void admitsAgainOnceExpired() {
+        FingerprintCache cache = cache(10, 0);
+
+        assertTrue(cache.tryAcquire(fingerprint("a1")));
+        assertTrue(cache.tryAcquire(fingerprint("a1")));
+    }
+
+    @Test
+    void admitsAgainOnceInvalidated() {
+        FingerprintCache cache = cache(10, 30);
+        cache.tryAcquire(fingerprint("a1"));
+
+        cache.invalidate("a1");
+
+        assertTrue(cache.tryAcquire(fingerprint("a1")));
+    }
+
+    @Test
+    void evictsEldestBeyondMaxSize() {
+        FingerprintCache cache = cache(2, 30);
+        cache.tryAcquire(fingerprint("a1"));
+        cache.tryAcquire(fingerprint("b2"));
+
+        // Refreshed entries move to the back of the eviction order
+        cache.refresh(fingerprint("a1"));
+        cache.tryAcquire(fingerprint("c3"));
+
+        assertFalse(cache.tryAcquire(fingerprint("a1")));
+        assertTrue(cache.tryAcquire(fingerprint("b2")));
+    }
+
+    private static FingerprintCache cache(int maxSize, long ttlMinutes) {
+        FingerprintCache cache = new FingerprintCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", ttlMinutes);
+        return cache;
+    }
+
+    private static Fingerprint fingerprint(String key) {
+        return new Fingerprint(key, "java.lang.IllegalStateException", List.of(), "Cart is empty");
+    }
+}
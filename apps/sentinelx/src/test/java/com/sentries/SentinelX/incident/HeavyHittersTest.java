@@ -0,0 +1,88 @@
+package com.sentries.SentinelX.incident;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HeavyHittersTest {
+
+    private HeavyHitters heavyHitters;
+
+    @BeforeEach
+    void setUp() {
+        heavyHitters = new HeavyHitters(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(heavyHitters, "width", 1024);
+        ReflectionTestUtils.setField(heavyHitters, "depth", 4);
+        ReflectionTestUtils.setField(heavyHitters, "topK", 2);
+        ReflectionTestUtils.setField(heavyHitters, "maxExemplarChars", 20);
+        heavyHitters.init();
+    }
+
+    @Test
+    void countsOccurrences() {
+        add("a1", 3);
+
+        assertEquals(4, heavyHitters.add(exemplar("a1")));
+        assertEquals(4, heavyHitters.estimate("a1"));
+        assertEquals(0, heavyHitters.estimate("b2"));
+    }
+
+    @Test
+    void heavierKeyEvictsLightestEntry() {
+        add("a1", 3);
+        add("b2", 1);
+
+        // Ties with the lightest entry, which stays
+        add("c3", 1);
+        assertEquals(List.of("a1", "b2"), keys(heavyHitters.top(10)));
+
+        add("c3", 1);
+        assertEquals(List.of("a1", "c3"), keys(heavyHitters.top(10)));
+        assertEquals(2L, heavyHitters.top(10).get(1).get("approximateCount"));
+    }
+
+    @Test
+    void decayHalvesCountsAndDropsEmptyEntries() {
+        add("a1", 3);
+        add("b2", 1);
+
+        heavyHitters.decay();
+
+        assertEquals(List.of("a1"), keys(heavyHitters.top(10)));
+        assertEquals(1L, heavyHitters.top(10).get(0).get("approximateCount"));
+        assertEquals(1, heavyHitters.stats(10).get("tracked"));
+        assertEquals(1, heavyHitters.estimate("a1"));
+        assertEquals(0, heavyHitters.estimate("b2"));
+    }
+
+    @Test
+    void truncatesLongExemplars() {
+        heavyHitters.add(new Exemplar("svc", fingerprint("a1"), "x".repeat(100)));
+
+        assertEquals("x".repeat(20), heavyHitters.top(1).get(0).get("exemplar"));
+    }
+
+    private void add(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            heavyHitters.add(exemplar(key));
+        }
+    }
+
+    private static Exemplar exemplar(String key) {
+        return new Exemplar("svc", fingerprint(key), "ERROR " + key);
+    }
+
+    private static Fingerprint fingerprint(String key) {
+        return new Fingerprint(key, "java.lang.IllegalStateException", List.of(), "boom");
+    }
+
+    private static List<Object> keys(List<Map<String, Object>> top) {
+        return top.stream().map(entry -> entry.get("fingerprint")).toList();
+    }
+}
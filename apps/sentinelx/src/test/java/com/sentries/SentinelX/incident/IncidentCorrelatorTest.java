@@ -0,0 +1,87 @@
+package com.sentries.SentinelX.incident;
+
+import com.sentries.SentinelX.ingest.AckHandle;
+import com.sentries.SentinelX.ingest.LogMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncidentCorrelatorTest {
+
+    private static final Fingerprint TIMEOUT = new Fingerprint("a1", "", List.of(), "Request timed out");
+
+    private static final Fingerprint NPE =
+            new Fingerprint("b2", "java.lang.NullPointerException", List.of("com.shop.Cart.total"), "");
+
+    private final IncidentCorrelator correlator = new IncidentCorrelator(1000, 5000, 3, 2);
+
+    @Test
+    void groupsByTraceIdOverFingerprint() {
+        correlator.add(message("trace_id=abcdef123 Request timed out"), TIMEOUT, 0);
+        correlator.add(message("trace_id=abcdef123 NullPointerException"), NPE, 100);
+        correlator.add(message("Request timed out"), TIMEOUT, 200);
+
+        List<Incident> closed = correlator.closeExpired(1200);
+
+        assertEquals(2, closed.size());
+        // Named after its first message carrying an exception
+        assertEquals("b2", closed.get(0).fingerprint().key());
+        assertEquals(2, closed.get(0).messages().size());
+        assertEquals(2, closed.get(0).exemplars().size());
+        assertEquals("a1", closed.get(1).fingerprint().key());
+    }
+
+    @Test
+    void closesAfterQuietWindowOrMaxWindow() {
+        IncidentCorrelator correlator = new IncidentCorrelator(1000, 5000, 100, 10);
+        for (long now = 0; now < 4900; now += 700) {
+            correlator.add(message("request_id=req-00001 Request timed out"), TIMEOUT, now);
+            assertTrue(correlator.closeExpired(now + 500).isEmpty());
+        }
+        correlator.add(message("request_id=req-00001 Request timed out"), TIMEOUT, 4900);
+        correlator.add(message("request_id=req-00002 Request timed out"), TIMEOUT, 4900);
+
+        // The first bundle has been open for maxWindowMs, the second is still inside its window
+        List<Incident> closed = correlator.closeExpired(5000);
+
+        assertEquals(1, closed.size());
+        assertEquals(8, closed.get(0).messages().size());
+        assertEquals(1, correlator.openBundles());
+
+        assertEquals(1, correlator.closeExpired(5900).size());
+    }
+
+    @Test
+    void closesFullBundleOnAdd() {
+        assertTrue(correlator.add(message("Request timed out"), TIMEOUT, 0).isEmpty());
+        assertTrue(correlator.add(message("Request timed out"), TIMEOUT, 1).isEmpty());
+
+        List<Incident> closed = correlator.add(message("Request timed out"), TIMEOUT, 2);
+
+        assertEquals(1, closed.size());
+        assertEquals(3, closed.get(0).messages().size());
+        // Repeats of the same line are kept for acking but give one exemplar
+        assertEquals(1, closed.get(0).exemplars().size());
+        assertEquals(0, correlator.openBundles());
+    }
+
+    @Test
+    void closesOldestBundleBeyondCapacity() {
+        correlator.add(message("trace_id=trace-0001"), TIMEOUT, 0);
+        correlator.add(message("trace_id=trace-0002"), TIMEOUT, 1);
+
+        List<Incident> closed = correlator.add(message("trace_id=trace-0003"), TIMEOUT, 2);
+
+        assertEquals(1, closed.size());
+        assertEquals("trace_id=trace-0001", closed.get(0).messages().get(0).data());
+        assertEquals(2, correlator.openBundles());
+        assertEquals(2, correlator.closeAll().size());
+    }
+
+    private static LogMessage message(String data) {
+        return new LogMessage("shopvista-service", data, AckHandle.NONE);
+    }
+}
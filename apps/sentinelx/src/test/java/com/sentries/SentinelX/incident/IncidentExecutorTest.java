@@ -0,0 +1,131 @@
+package com.sentries.SentinelX.incident;
+
+import com.sentries.SentinelX.chat.ChatService;
+import com.sentries.SentinelX.config.MonitoredService;
+import com.sentries.SentinelX.config.ServiceRegistry;
+import com.sentries.SentinelX.ingest.AckHandle;
+import com.sentries.SentinelX.ingest.LogMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IncidentExecutorTest {
+
+    private final ChatService chatService = mock(ChatService.class);
+
+    private final HeavyHitters heavyHitters = mock(HeavyHitters.class);
+
+    private final IncidentScorer incidentScorer = mock(IncidentScorer.class);
+
+    private final Map<String, Double> scores = new ConcurrentHashMap<>();
+
+    private final List<String> runOrder = new CopyOnWriteArrayList<>();
+
+    // Holds the first run, so everything submitted after it has to queue
+    private final CountDownLatch blocker = new CountDownLatch(1);
+
+    private IncidentExecutor incidentExecutor;
+
+    @BeforeEach
+    void setUp() {
+        when(heavyHitters.promptLines(any(), anyInt()))
+                .thenAnswer(invocation -> List.of(((Incident) invocation.getArgument(0)).fingerprint().key()));
+        when(incidentScorer.score(any()))
+                .thenAnswer(invocation -> scores.get(((Incident) invocation.getArgument(0)).fingerprint().key()));
+        doAnswer(invocation -> {
+            String key = ((List<?>) invocation.getArgument(1)).get(0).toString();
+            runOrder.add(key);
+            if (key.equals("first")) {
+                blocker.await();
+            }
+            return "";
+        }).when(chatService).converse(anyString(), anyList(), any());
+
+        ServiceRegistry serviceRegistry = new ServiceRegistry(Map.of(
+                "shop", new MonitoredService("shop-logs", "apps/shop", null, 1, List.of())));
+        incidentExecutor = new IncidentExecutor(chatService, serviceRegistry, heavyHitters, incidentScorer,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(incidentExecutor, "maxConcurrentRuns", 4);
+        ReflectionTestUtils.setField(incidentExecutor, "exemplarsPerIncident", 10);
+        ReflectionTestUtils.setField(incidentExecutor, "runTimeoutMinutes", 1L);
+        ReflectionTestUtils.setField(incidentExecutor, "maxQueued", 2);
+        incidentExecutor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        incidentExecutor.shutdown();
+    }
+
+    @Test
+    void runsHighestScoreFirst() throws InterruptedException {
+        ReflectionTestUtils.setField(incidentExecutor, "agingPointsPerMinute", 0.0);
+        CountDownLatch done = new CountDownLatch(3);
+
+        submit("first", 50, done);
+        submit("low", 10, done);
+        submit("high", 90, done);
+        blocker.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "high", "low"), runOrder);
+    }
+
+    @Test
+    void agingLetsLongWaitingIncidentOvertake() throws InterruptedException {
+        // A millisecond of waiting is worth a thousand points
+        ReflectionTestUtils.setField(incidentExecutor, "agingPointsPerMinute", 60_000_000.0);
+        CountDownLatch done = new CountDownLatch(3);
+
+        submit("first", 50, done);
+        submit("low", 10, done);
+        Thread.sleep(20);
+        submit("high", 90, done);
+        blocker.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(List.of("first", "low", "high"), runOrder);
+    }
+
+    @Test
+    void turnsAwayIncidentsWhenQueueIsFull() throws InterruptedException {
+        ReflectionTestUtils.setField(incidentExecutor, "agingPointsPerMinute", 0.0);
+        CountDownLatch done = new CountDownLatch(3);
+
+        assertTrue(submit("first", 50, done));
+        assertTrue(submit("a", 10, done));
+        assertTrue(submit("b", 10, done));
+        assertFalse(submit("c", 90, done));
+        blocker.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(runOrder.contains("c"));
+    }
+
+    private boolean submit(String key, double score, CountDownLatch done) {
+        scores.put(key, score);
+        Incident incident = new Incident(new Fingerprint(key, "", List.of(), ""),
+                List.of(new LogMessage("shop", key, AckHandle.NONE)), List.of());
+        return incidentExecutor.trySubmit(incident, () -> true, (outcome, failure) -> done.countDown());
+    }
+}
@@ -0,0 +1,88 @@
+package com.sentries.SentinelX.incident;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncidentLedgerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsRecordedOutcomeAfterRestart() throws IOException {
+        IncidentLedger ledger = open();
+        ledger.record(new IncidentOutcome("a1", System.currentTimeMillis(), "https://github.com/o/r/pull/7", null));
+        ledger.close();
+
+        IncidentLedger reopened = open();
+
+        assertEquals("https://github.com/o/r/pull/7", reopened.find("a1").orElseThrow().pullRequestUrl());
+        assertTrue(reopened.find("b2").isEmpty());
+        reopened.close();
+    }
+
+    @Test
+    void skipsRunsThatFixedNothing() throws IOException {
+        IncidentLedger ledger = open();
+        ledger.record(new IncidentOutcome("a1", System.currentTimeMillis(), null, null));
+
+        assertTrue(ledger.find("a1").isEmpty());
+        ledger.close();
+        assertEquals(0, Files.readAllLines(dir.resolve("ledger.tsv")).size());
+    }
+
+    @Test
+    void ignoresExpiredAndMalformedLines() throws IOException {
+        long expired = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8);
+        Files.write(dir.resolve("ledger.tsv"), List.of(
+                "a1\t" + expired + "\thttps://github.com/o/r/pull/1\t-",
+                "b2\tnot-a-time\t-\tSHOP-12",
+                "c3\t" + System.currentTimeMillis() + "\t-\tSHOP-13",
+                "truncated"));
+
+        IncidentLedger ledger = open();
+
+        assertTrue(ledger.find("a1").isEmpty());
+        assertTrue(ledger.find("b2").isEmpty());
+        assertEquals("SHOP-13", ledger.find("c3").orElseThrow().jiraKey());
+        ledger.close();
+    }
+
+    @Test
+    void compactsSupersededLinesOnLoad() throws IOException {
+        long now = System.currentTimeMillis();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            lines.add("a1\t" + (now - 1100 + i) + "\t-\tSHOP-" + i);
+        }
+        Files.write(dir.resolve("ledger.tsv"), lines);
+
+        IncidentLedger ledger = open();
+
+        // The latest line wins
+        assertEquals("SHOP-1099", ledger.find("a1").orElseThrow().jiraKey());
+        assertEquals(1, Files.readAllLines(dir.resolve("ledger.tsv")).size());
+        ledger.close();
+    }
+
+    private IncidentLedger open() {
+        IncidentLedger ledger = new IncidentLedger(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "path", dir.resolve("ledger.tsv").toString());
+        ReflectionTestUtils.setField(ledger, "ttlDays", 7L);
+        ledger.load();
+        return ledger;
+    }
+}
@@ -0,0 +1,79 @@
+package com.sentries.SentinelX.incident;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class LogFingerprinterTest {
+
+    private LogFingerprinter logFingerprinter;
+
+    @BeforeEach
+    void setUp() {
+        logFingerprinter = new LogFingerprinter();
+        ReflectionTestUtils.setField(logFingerprinter, "appPackages", new String[]{"com.shopvista"});
+        ReflectionTestUtils.setField(logFingerprinter, "maxFrames", 2);
+    }
+
+    @Test
+    void templatesVariableParts() {
+        Fingerprint fingerprint = logFingerprinter.fingerprint("svc",
+                "java.lang.IllegalStateException: Order 42 for 'alice' failed at 0x1f, trace 3f2a9c1b-0d4e-4c1a-9b7e-2a1c3d4e5f60");
+
+        assertEquals("java.lang.IllegalStateException", fingerprint.exceptionType());
+        assertEquals("Order <n> for <str> failed at <hex>, trace <uuid>", fingerprint.messageTemplate());
+    }
+
+    @Test
+    void sameFailureWithDifferentDataSharesKey() {
+        Fingerprint first = logFingerprinter.fingerprint("svc", "java.lang.IllegalStateException: Order 42 missing");
+        Fingerprint second = logFingerprinter.fingerprint("svc", "java.lang.IllegalStateException: Order 7 missing");
+        Fingerprint otherService = logFingerprinter.fingerprint("other", "java.lang.IllegalStateException: Order 7 missing");
+
+        assertEquals(first.key(), second.key());
+        assertNotEquals(first.key(), otherService.key());
+    }
+
+    @Test
+    void prefersRootCause() {
+        Fingerprint fingerprint = logFingerprinter.fingerprint("svc", """
+                org.springframework.web.util.NestedServletException: Request processing failed
+                Caused by: java.lang.RuntimeException: wrapped
+                Caused by: java.sql.SQLException: Connection 12 refused
+                """);
+
+        assertEquals("java.sql.SQLException", fingerprint.exceptionType());
+        assertEquals("Connection <n> refused", fingerprint.messageTemplate());
+    }
+
+    @Test
+    void keepsApplicationFramesUpToMaxFrames() {
+        String logLine = """
+                java.lang.NullPointerException: boom
+                \tat org.springframework.web.Dispatcher.doDispatch(Dispatcher.java:10)
+                \tat com.shopvista.cart.CartService.add(CartService.java:20)
+                \tat com.shopvista.cart.CartController.post(CartController.java:30)
+                \tat com.shopvista.Filter.doFilter(Filter.java:40)
+                """;
+
+        assertEquals(List.of("com.shopvista.cart.CartService.add", "com.shopvista.cart.CartController.post"),
+                logFingerprinter.fingerprint("svc", logLine).frames());
+        assertEquals(List.of("org.springframework.web.Dispatcher.doDispatch"),
+                logFingerprinter.fingerprint("svc", List.of("org.springframework"), logLine).frames());
+    }
+
+    @Test
+    void readsEscapedJsonStackTraces() {
+        Fingerprint fingerprint = logFingerprinter.fingerprint("svc",
+                "{\"textPayload\":\"java.lang.NullPointerException: boom\\n\\tat com.shopvista.cart.CartService.add(CartService.java:20)\"}");
+
+        assertEquals("java.lang.NullPointerException", fingerprint.exceptionType());
+        assertEquals("boom", fingerprint.messageTemplate());
+        assertEquals(List.of("com.shopvista.cart.CartService.add"), fingerprint.frames());
+    }
+}
@@ -0,0 +1,107 @@
+package com.sentries.SentinelX.incident;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StackTraceCompactorTest {
+
+    private static final String TRACE = """
+            java.lang.IllegalStateException: boom
+            \tat org.springframework.web.Dispatcher.doDispatch(Dispatcher.java:10)
+            \tat org.springframework.web.Dispatcher.service(Dispatcher.java:11)
+            \tat com.shopvista.cart.CartService.add(CartService.java:20)
+            \tat org.apache.catalina.Valve.invoke(Valve.java:30)
+            Caused by: java.sql.SQLException: refused
+            \tat com.shopvista.db.Pool.get(Pool.java:5)
+            \t... 5 more""";
+
+    private StackTraceCompactor stackTraceCompactor;
+
+    @BeforeEach
+    void setUp() {
+        stackTraceCompactor = new StackTraceCompactor(new ObjectMapper());
+        ReflectionTestUtils.setField(stackTraceCompactor, "appPackages", new String[]{"com.shopvista"});
+    }
+
+    @Test
+    void collapsesFrameworkFrames() {
+        assertEquals(List.of("""
+                java.lang.IllegalStateException: boom
+                \t... 2 framework frames omitted
+                \tat com.shopvista.cart.CartService.add(CartService.java:20)
+                \t... 1 framework frames omitted
+                Caused by: java.sql.SQLException: refused
+                \tat com.shopvista.db.Pool.get(Pool.java:5)
+                \t... 5 more"""), stackTraceCompactor.compact(List.of(TRACE)));
+    }
+
+    @Test
+    void keepsCommonFrameMarkersAsTheyAre() {
+        String trace = """
+                Caused by: java.sql.SQLException: refused
+                \tat org.postgresql.Driver.connect(Driver.java:1)
+                \t... 99999999999 common frames omitted""";
+
+        assertEquals(List.of("""
+                Caused by: java.sql.SQLException: refused
+                \t... 1 framework frames omitted
+                \t... 99999999999 common frames omitted"""), stackTraceCompactor.compact(List.of(trace)));
+    }
+
+    @Test
+    void showsRepeatedCauseOnce() {
+        String first = """
+                java.lang.IllegalStateException: checkout failed
+                Caused by: java.sql.SQLException: refused
+                \tat com.shopvista.db.Pool.get(Pool.java:5)""";
+        String second = """
+                java.lang.IllegalStateException: pricing failed
+                Caused by: java.sql.SQLException: refused
+                \tat com.shopvista.db.Pool.get(Pool.java:5)""";
+
+        assertEquals(List.of(first, """
+                java.lang.IllegalStateException: pricing failed
+                Caused by: java.sql.SQLException: refused [stack trace shown above]"""),
+                stackTraceCompactor.compact(List.of(first, second)));
+    }
+
+    @Test
+    void mergesIdenticalEntries() {
+        List<String> compacted = stackTraceCompactor.compact(List.of("ERROR a", "ERROR b", "ERROR a"));
+
+        assertEquals(List.of("[occurred 2 times]\nERROR a", "ERROR b"), compacted);
+    }
+
+    @Test
+    void unwrapsCloudLoggingEntries() {
+        String textPayload = "{\"severity\":\"ERROR\",\"textPayload\":\"java.lang.IllegalStateException: boom\\n"
+                + "\\tat org.springframework.web.Dispatcher.doDispatch(Dispatcher.java:10)\"}";
+        String jsonPayload = "{\"jsonPayload\":{\"message\":\"Checkout failed\","
+                + "\"stack_trace\":\"\\tat com.shopvista.cart.CartService.add(CartService.java:20)\"}}";
+
+        assertEquals(List.of(
+                "ERROR java.lang.IllegalStateException: boom\n\t... 1 framework frames omitted",
+                "Checkout failed\n\tat com.shopvista.cart.CartService.add(CartService.java:20)"),
+                stackTraceCompactor.compact(List.of(textPayload, jsonPayload)));
+    }
+
+    @Test
+    void usesServiceAppPackages() {
+        String trace = """
+                java.lang.IllegalStateException: boom
+                \tat com.shopvista.cart.CartService.add(CartService.java:20)
+                \tat io.orders.OrderService.place(OrderService.java:30)""";
+
+        assertEquals(List.of("""
+                java.lang.IllegalStateException: boom
+                \t... 1 framework frames omitted
+                \tat io.orders.OrderService.place(OrderService.java:30)"""),
+                stackTraceCompactor.compact(List.of("io.orders"), List.of(trace)));
+    }
+}
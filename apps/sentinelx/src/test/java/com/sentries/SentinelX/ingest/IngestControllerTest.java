@@ -0,0 +1,77 @@
+package com.sentries.SentinelX.ingest;
+
+import com.sentries.SentinelX.config.MonitoredService;
+import com.sentries.SentinelX.config.ServiceRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IngestControllerTest {
+
+    private final LogDispatcher logDispatcher = mock(LogDispatcher.class);
+
+    private IngestController ingestController;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, MonitoredService> services = new LinkedHashMap<>();
+        services.put("shop", new MonitoredService("shop-logs", "apps/shop", null, null, List.of()));
+        LogIngestService logIngestService = new LogIngestService(logDispatcher);
+        ReflectionTestUtils.setField(logIngestService, "maxLineChars", 1000);
+        ReflectionTestUtils.setField(logIngestService, "handoffTimeoutMs", 10L);
+        ingestController = new IngestController(logIngestService, new ServiceRegistry(services));
+        ReflectionTestUtils.setField(ingestController, "retryAfterSeconds", 7L);
+    }
+
+    @Test
+    void refusesUnknownService() throws Exception {
+        ResponseEntity<IngestResult> response = ingestController.ingest("billing", request("one\n", false));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(logDispatcher);
+    }
+
+    @Test
+    void refusesCorruptGzip() throws Exception {
+        ResponseEntity<IngestResult> response = ingestController.ingest("shop", request("not gzip\n", true));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void asksProducerToRetryWhenQueueIsFull() throws Exception {
+        when(logDispatcher.offer(any(), anyLong(), any())).thenReturn(true, false);
+
+        ResponseEntity<IngestResult> response = ingestController.ingest(null, request("one\ntwo\n", false));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(new IngestResult(1, 0, true), response.getBody());
+    }
+
+    private static MockHttpServletRequest request(String body, boolean gzip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/logs");
+        request.setContentType("application/x-ndjson");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (gzip) {
+            request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return request;
+    }
+}
@@ -0,0 +1,110 @@
+package com.sentries.SentinelX.ingest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogIngestServiceTest {
+
+    private final LogDispatcher logDispatcher = mock(LogDispatcher.class);
+
+    private final List<String> dispatched = new CopyOnWriteArrayList<>();
+
+    private LogIngestService logIngestService;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        when(logDispatcher.offer(any(), anyLong(), any())).thenAnswer(invocation -> {
+            LogMessage message = invocation.getArgument(0);
+            dispatched.add(message.data());
+            return true;
+        });
+        logIngestService = new LogIngestService(logDispatcher);
+        ReflectionTestUtils.setField(logIngestService, "maxLineChars", 100_000);
+        ReflectionTestUtils.setField(logIngestService, "handoffTimeoutMs", 10L);
+    }
+
+    @Test
+    void splitsLinesAcrossChunkBoundaries() throws Exception {
+        String longLine = "{\"message\":\"" + "x".repeat(70_000) + "\"}";
+        String body = "{\"message\":\"caf\u00e9 \u2615\"}\n\n" + longLine + "\n{\"message\":\"last\"}";
+
+        // Three bytes per read, so lines and multi-byte characters straddle reads
+        IngestResult result = logIngestService.ingest("shop", trickle(body.getBytes(StandardCharsets.UTF_8)), false);
+
+        assertEquals(new IngestResult(3, 0, false), result);
+        assertEquals(List.of("{\"message\":\"caf\u00e9 \u2615\"}", longLine, "{\"message\":\"last\"}"), dispatched);
+    }
+
+    @Test
+    void stripsCarriageReturns() throws Exception {
+        IngestResult result = logIngestService.ingest("shop", stream("first\r\nsecond\r\n"), false);
+
+        assertEquals(2, result.accepted());
+        assertEquals(List.of("first", "second"), dispatched);
+    }
+
+    @Test
+    void skipsOversizedLines() throws Exception {
+        ReflectionTestUtils.setField(logIngestService, "maxLineChars", 10);
+
+        IngestResult result = logIngestService.ingest("shop", stream("short\n" + "y".repeat(25) + "\nalso short\n"), false);
+
+        assertEquals(new IngestResult(2, 1, false), result);
+        assertEquals(List.of("short", "also short"), dispatched);
+    }
+
+    @Test
+    void decompressesGzip() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("one\ntwo\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        IngestResult result = logIngestService.ingest("shop", trickle(compressed.toByteArray()), true);
+
+        assertEquals(2, result.accepted());
+        assertEquals(List.of("one", "two"), dispatched);
+    }
+
+    @Test
+    void stopsAtFirstLineTheQueueRefuses() throws Exception {
+        doReturn(true, false).when(logDispatcher).offer(any(), anyLong(), any());
+
+        IngestResult result = logIngestService.ingest("shop", stream("one\ntwo\nthree\n"), false);
+
+        assertTrue(result.rejected());
+        assertEquals(1, result.accepted());
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream trickle(byte[] bytes) {
+        return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 3));
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.sentries.SentinelX.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RuleBasedLogFilterTest {
+
+    @Test
+    void dropsCloudLoggingEntriesBelowMinSeverity() {
+        RuleBasedLogFilter filter = filter("ERROR");
+
+        assertEquals(Optional.of("severity"), filter.reject("{\"severity\":\"INFO\",\"textPayload\":\"Started\"}"));
+        assertEquals(Optional.of("severity"), filter.reject("{\"severity\" : \"warning\",\"textPayload\":\"Slow\"}"));
+        assertEquals(Optional.empty(), filter.reject("{\"severity\":\"ERROR\",\"textPayload\":\"Failed\"}"));
+        assertEquals(Optional.empty(), filter.reject("{\"severity\":\"CRITICAL\",\"textPayload\":\"Down\"}"));
+    }
+
+    @Test
+    void readsLevelTokenOfPlainLines() {
+        RuleBasedLogFilter filter = filter("WARN");
+
+        assertEquals(Optional.of("severity"), filter.reject("2024-05-01 10:00:00 DEBUG c.s.Cache - miss"));
+        assertEquals(Optional.empty(), filter.reject("2024-05-01 10:00:00 WARN c.s.Cache - evicting"));
+    }
+
+    @Test
+    void keepsStackTracesAtAnyLevel() {
+        assertEquals(Optional.empty(), filter("ERROR").reject(
+                "{\"severity\":\"INFO\",\"textPayload\":\"java.lang.IllegalStateException: boom\"}"));
+    }
+
+    @Test
+    void keepsLinesWithoutKnownSeverity() {
+        RuleBasedLogFilter filter = filter("ERROR");
+
+        assertEquals(Optional.empty(), filter.reject("something happened"));
+        assertEquals(Optional.empty(), filter.reject("{\"severity\":\"DEFAULT\",\"textPayload\":\"?\"}"));
+    }
+
+    @Test
+    void dropsBenignPatternsEvenAtError() {
+        RuleBasedLogFilter filter = filter("ERROR", "ClientAbortException", "Broken pipe");
+
+        assertEquals(Optional.of("benign"), filter.reject(
+                "{\"severity\":\"ERROR\",\"textPayload\":\"org.apache.catalina.connector.ClientAbortException\"}"));
+        assertEquals(Optional.of("benign"), filter.reject("ERROR write failed: Broken pipe"));
+    }
+
+    private static RuleBasedLogFilter filter(String minSeverity, String... benignPatterns) {
+        RuleBasedLogFilter filter = new RuleBasedLogFilter();
+        ReflectionTestUtils.setField(filter, "minSeverity", minSeverity);
+        ReflectionTestUtils.setField(filter, "benignPatterns", benignPatterns);
+        filter.init();
+        return filter;
+    }
+}
@@ -0,0 +1,115 @@
+package com.sentries.SentinelX.triage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sentries.SentinelX.chat.ModelFactory;
+import com.sentries.SentinelX.execution.ExecutionMode;
+import com.sentries.SentinelX.metrics.AgentMetrics;
+import com.sentries.SentinelX.replay.ReplayHarness;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Triages against a local stand-in for the Gemini API, reached through sentinelx.models.base-url
+class TriageServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<String> requestPaths = new CopyOnWriteArrayList<>();
+
+    private HttpServer modelServer;
+
+    private volatile String reply;
+
+    private TriageService triageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        modelServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        modelServer.createContext("/", exchange -> {
+            requestPaths.add(exchange.getRequestURI().getPath());
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("candidates", List.of(Map.of(
+                    "content", Map.of("role", "model", "parts", List.of(Map.of("text", reply))),
+                    "finishReason", "STOP"))));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        modelServer.start();
+
+        ReplayHarness replayHarness = mock(ReplayHarness.class);
+        ModelFactory modelFactory = new ModelFactory(replayHarness);
+        ReflectionTestUtils.setField(modelFactory, "baseUrl", "http://localhost:" + modelServer.getAddress().getPort());
+        ReflectionTestUtils.setField(modelFactory, "apiKey", "test-key");
+
+        ExecutionMode executionMode = mock(ExecutionMode.class);
+        when(executionMode.limit(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        triageService = new TriageService(modelFactory, new AgentMetrics(meterRegistry), executionMode,
+                replayHarness, meterRegistry, objectMapper);
+        ReflectionTestUtils.setField(triageService, "enabled", true);
+        ReflectionTestUtils.setField(triageService, "model", "gemini-2.5-flash-lite");
+        triageService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        modelServer.stop(0);
+    }
+
+    @Test
+    void classifiesFromModelReply() {
+        reply = """
+                ```json
+                {"classification": "CONFIGURATION", "title": "Missing DB secret", "summary": "DB_PASSWORD is unset."}
+                ```""";
+
+        Triage triage = triageService.triage("SecretManagerException: secret DB_PASSWORD not found");
+
+        assertEquals(Classification.CONFIGURATION, triage.classification());
+        assertEquals("Missing DB secret", triage.title());
+        assertEquals("DB_PASSWORD is unset.", triage.summary());
+        assertTrue(requestPaths.stream().anyMatch(path -> path.endsWith("gemini-2.5-flash-lite:generateContent")),
+                requestPaths.toString());
+    }
+
+    @Test
+    void escalatesReplyThatIsNotJson() {
+        reply = "Looks like a null pointer in the cart service.";
+
+        Triage triage = triageService.triage("java.lang.NullPointerException at com.shop.Cart.total");
+
+        assertEquals(Classification.CODE_FIX, triage.classification());
+        assertEquals(reply, triage.summary());
+    }
+
+    @Test
+    void escalatesUnknownClassification() {
+        reply = "{\"title\": \"Unclear\", \"summary\": \"Could be anything.\"}";
+
+        Triage triage = triageService.triage("WARN something odd happened");
+
+        assertEquals(Classification.CODE_FIX, triage.classification());
+        assertEquals("Could be anything.", triage.summary());
+    }
+}
@@ -0,0 +1,249 @@
+package com.sentries.secrets;
+
+import com.google.cloud.secretmanager.v1.SecretManagerServiceClient;
+import com.google.cloud.secretmanager.v1.SecretVersionName;
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The sm:// property source resolves each ${sm://...} placeholder with its own Secret Manager
+// call, one after another, on the cold-start path. This resolves every referenced secret once,
+// concurrently, right after the config files are loaded, and puts the values in front of the
+// sm:// source, which then only sees the references that could not be fetched here.
+// Shared by every app through spring.factories. Properties, all optional:
+// secrets.prefetch.enabled (default true), secrets.prefetch.cache-ttl-seconds (default 0, no cache),
+// secrets.prefetch.cache-file (default <tmpdir>/<app>-secrets.properties) and secrets.prefetch.fake-file.
+public class SecretPrefetcher implements EnvironmentPostProcessor, Ordered {
+
+    public static final String PROPERTY_SOURCE = "prefetchedSecrets";
+
+    private static final String PREFIX = "sm://";
+
+    private static final Pattern REFERENCE = Pattern.compile("\\$\\{(" + PREFIX + "[^}:]+)");
+
+    private final Log log;
+
+    public SecretPrefetcher(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(SecretPrefetcher.class);
+    }
+
+    @Override
+    public int getOrder() {
+        return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.getProperty("secrets.prefetch.enabled", Boolean.class, true)
+                || !environment.getProperty("spring.cloud.gcp.secretmanager.enabled", Boolean.class, true)) {
+            return;
+        }
+        Set<String> references = references(environment);
+        if (references.isEmpty()) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        Duration ttl = Duration.ofSeconds(environment.getProperty("secrets.prefetch.cache-ttl-seconds", Long.class, 0L));
+        Path cacheFile = cacheFile(environment);
+        Map<String, Object> secrets = readCache(cacheFile, references, ttl);
+        boolean cached = !secrets.isEmpty();
+        if (!cached) {
+            secrets = fetch(environment, references);
+            if (!ttl.isZero() && secrets.size() == references.size()) {
+                writeCache(cacheFile, secrets);
+            }
+        }
+
+        environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE, secrets));
+        log.info(String.format("Prefetched %d of %d secrets in %d ms%s", secrets.size(), references.size(),
+                (System.nanoTime() - startedAt) / 1_000_000, cached ? " from the local cache" : ""));
+    }
+
+    // Every sm:// reference in the loaded config, e.g. sm://pg-host out of jdbc:postgresql://${sm://pg-host}:5432
+    private static Set<String> references(ConfigurableEnvironment environment) {
+        Set<String> references = new TreeSet<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (!(source instanceof EnumerablePropertySource<?> enumerable)) {
+                continue;
+            }
+            for (String name : enumerable.getPropertyNames()) {
+                if (enumerable.getProperty(name) instanceof CharSequence value) {
+                    Matcher matcher = REFERENCE.matcher(value);
+                    while (matcher.find()) {
+                        references.add(matcher.group(1).strip());
+                    }
+                }
+            }
+        }
+        return references;
+    }
+
+    // Failed lookups are left out, so the sm:// source retries them and reports the error as before
+    private Map<String, Object> fetch(ConfigurableEnvironment environment, Set<String> references) {
+        String fakeFile = environment.getProperty("secrets.prefetch.fake-file", "");
+        Map<String, Object> secrets = new LinkedHashMap<>();
+        try (SecretBackend backend = fakeFile.isBlank() ? secretManager() : fake(Path.of(fakeFile));
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String project = environment.getProperty("spring.cloud.gcp.secretmanager.project-id",
+                    environment.getProperty("spring.cloud.gcp.project-id", ""));
+
+            Map<String, Future<String>> lookups = new LinkedHashMap<>();
+            for (String reference : references) {
+                lookups.put(reference, executor.submit(() -> backend.access(secretVersion(reference, project))));
+            }
+            for (Map.Entry<String, Future<String>> lookup : lookups.entrySet()) {
+                try {
+                    secrets.put(lookup.getKey(), lookup.getValue().get());
+                } catch (ExecutionException e) {
+                    log.warn("Could not prefetch " + lookup.getKey() + ": " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Secret prefetch failed, resolving secrets one by one: " + e.getMessage());
+        }
+        return secrets;
+    }
+
+    // Same formats as the sm:// source: secret, secret/version, project/secret/version,
+    // projects/p/secrets/s and projects/p/secrets/s/versions/v
+    private static SecretVersionName secretVersion(String reference, String defaultProject) {
+        String[] tokens = reference.substring(PREFIX.length()).split("/");
+        return switch (tokens.length) {
+            case 1 -> SecretVersionName.of(defaultProject, tokens[0], "latest");
+            case 2 -> SecretVersionName.of(defaultProject, tokens[0], tokens[1]);
+            case 3 -> SecretVersionName.of(tokens[0], tokens[1], tokens[2]);
+            case 4 -> SecretVersionName.of(tokens[1], tokens[3], "latest");
+            case 6 -> SecretVersionName.of(tokens[1], tokens[3], tokens[5]);
+            default -> throw new IllegalArgumentException("Unrecognized secret reference " + reference);
+        };
+    }
+
+    private static Path cacheFile(ConfigurableEnvironment environment) {
+        String configured = environment.getProperty("secrets.prefetch.cache-file", "");
+        return configured.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"),
+                        environment.getProperty("spring.application.name", "application") + "-secrets.properties")
+                : Path.of(configured);
+    }
+
+    // Off unless a TTL is set; restarts within the TTL on the same instance skip the fetch. The
+    // cache is only used when it holds every reference, so no entry outlives the TTL.
+    private Map<String, Object> readCache(Path cacheFile, Set<String> references, Duration ttl) {
+        if (ttl.isZero() || !Files.isRegularFile(cacheFile)) {
+            return Map.of();
+        }
+        try {
+            if (Files.getLastModifiedTime(cacheFile).toInstant().plus(ttl).isBefore(Instant.now())) {
+                return Map.of();
+            }
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(cacheFile)) {
+                properties.load(reader);
+            }
+            Map<String, Object> secrets = new LinkedHashMap<>();
+            for (String reference : references) {
+                String value = properties.getProperty(reference);
+                if (value == null) {
+                    return Map.of();
+                }
+                secrets.put(reference, value);
+            }
+            return secrets;
+        } catch (IOException e) {
+            log.warn("Could not read secret cache " + cacheFile + ": " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private void writeCache(Path cacheFile, Map<String, Object> secrets) {
+        if (!Files.isDirectory(cacheFile.toAbsolutePath().getParent())) {
+            return;
+        }
+        try {
+            Properties properties = new Properties();
+            secrets.forEach((reference, value) -> properties.setProperty(reference, value.toString()));
+            Path temp = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "secrets", ".tmp");
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system, the temp file's default permissions apply
+            }
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                properties.store(writer, null);
+            }
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write secret cache " + cacheFile + ": " + e.getMessage());
+        }
+    }
+
+    private static SecretBackend secretManager() throws IOException {
+        SecretManagerServiceClient client = SecretManagerServiceClient.create();
+        return new SecretBackend() {
+            @Override
+            public String access(SecretVersionName name) {
+                return client.accessSecretVersion(name).getPayload().getData().toStringUtf8();
+            }
+
+            @Override
+            public void close() {
+                client.close();
+            }
+        };
+    }
+
+    // Local stand-in for Secret Manager: a properties file keyed by secret id, e.g. pg-host=localhost
+    private static SecretBackend fake(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return name -> {
+            String value = properties.getProperty(name.getSecret());
+            if (value == null) {
+                throw new IllegalArgumentException("No secret " + name.getSecret() + " in the fake backend");
+            }
+            return value;
+        };
+    }
+
+    private interface SecretBackend extends AutoCloseable {
+
+        String access(SecretVersionName name) throws Exception;
+
+        @Override
+        default void close() {
+        }
+    }
+}
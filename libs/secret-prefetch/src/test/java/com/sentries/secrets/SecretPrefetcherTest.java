@@ -0,0 +1,114 @@
+package com.sentries.secrets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecretPrefetcherTest {
+
+    private final SecretPrefetcher secretPrefetcher = new SecretPrefetcher(Supplier::get);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void prefetchesEveryReferenceFromTheFakeBackend() throws Exception {
+        Path fakeFile = fakeFile("pg-host=db.internal\npg-username=shop\npg-password=secret\n");
+        ConfigurableEnvironment environment = environment(Map.of(
+                "secrets.prefetch.fake-file", fakeFile.toString(),
+                "spring.datasource.url", "jdbc:postgresql://${sm://pg-host}:5432/shop",
+                "spring.datasource.username", "${sm://pg-username:admin}",
+                "spring.datasource.password", "${sm://other-project/pg-password/2}"));
+
+        secretPrefetcher.postProcessEnvironment(environment, null);
+
+        PropertySource<?> prefetched = environment.getPropertySources().get(SecretPrefetcher.PROPERTY_SOURCE);
+        assertEquals("db.internal", prefetched.getProperty("sm://pg-host"));
+        assertEquals("shop", prefetched.getProperty("sm://pg-username"));
+        assertEquals("secret", prefetched.getProperty("sm://other-project/pg-password/2"));
+        assertEquals("jdbc:postgresql://db.internal:5432/shop", environment.getProperty("spring.datasource.url"));
+    }
+
+    @Test
+    void leavesOutSecretsTheBackendDoesNotHave() throws Exception {
+        Path fakeFile = fakeFile("pg-host=db.internal\n");
+        ConfigurableEnvironment environment = environment(Map.of(
+                "secrets.prefetch.fake-file", fakeFile.toString(),
+                "spring.datasource.url", "jdbc:postgresql://${sm://pg-host}:5432/shop",
+                "spring.datasource.password", "${sm://pg-password}"));
+
+        secretPrefetcher.postProcessEnvironment(environment, null);
+
+        PropertySource<?> prefetched = environment.getPropertySources().get(SecretPrefetcher.PROPERTY_SOURCE);
+        assertEquals("db.internal", prefetched.getProperty("sm://pg-host"));
+        assertFalse(prefetched.containsProperty("sm://pg-password"));
+    }
+
+    @Test
+    void servesRestartsFromTheCacheUntilTheTtlRunsOut() throws Exception {
+        Path fakeFile = fakeFile("pg-host=db.internal\n");
+        Path cacheFile = tempDir.resolve("cache.properties");
+        Map<String, Object> properties = Map.of(
+                "secrets.prefetch.fake-file", fakeFile.toString(),
+                "secrets.prefetch.cache-ttl-seconds", "60",
+                "secrets.prefetch.cache-file", cacheFile.toString(),
+                "spring.datasource.url", "jdbc:postgresql://${sm://pg-host}:5432/shop");
+
+        secretPrefetcher.postProcessEnvironment(environment(properties), null);
+        assertTrue(Files.isRegularFile(cacheFile));
+
+        // With the backend gone, only the cache can supply the value
+        Files.delete(fakeFile);
+        ConfigurableEnvironment restarted = environment(properties);
+        secretPrefetcher.postProcessEnvironment(restarted, null);
+        assertEquals("db.internal",
+                restarted.getPropertySources().get(SecretPrefetcher.PROPERTY_SOURCE).getProperty("sm://pg-host"));
+
+        Files.setLastModifiedTime(cacheFile, FileTime.from(Instant.now().minus(Duration.ofMinutes(2))));
+        ConfigurableEnvironment expired = environment(properties);
+        secretPrefetcher.postProcessEnvironment(expired, null);
+        assertNull(expired.getPropertySources().get(SecretPrefetcher.PROPERTY_SOURCE).getProperty("sm://pg-host"));
+    }
+
+    @Test
+    void doesNothingWhenDisabled() throws Exception {
+        Path fakeFile = fakeFile("pg-host=db.internal\n");
+        ConfigurableEnvironment environment = environment(Map.of(
+                "secrets.prefetch.enabled", "false",
+                "secrets.prefetch.fake-file", fakeFile.toString(),
+                "spring.datasource.url", "jdbc:postgresql://${sm://pg-host}:5432/shop"));
+
+        secretPrefetcher.postProcessEnvironment(environment, null);
+
+        assertFalse(environment.getPropertySources().contains(SecretPrefetcher.PROPERTY_SOURCE));
+    }
+
+    private Path fakeFile(String contents) throws Exception {
+        return Files.writeString(tempDir.resolve("secrets-local.properties"), contents);
+    }
+
+    private static ConfigurableEnvironment environment(Map<String, Object> properties) {
+        Map<String, Object> config = new HashMap<>(properties);
+        config.put("spring.cloud.gcp.project-id", "test-project");
+        ConfigurableEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addLast(new MapPropertySource("application.properties", config));
+        return environment;
+    }
+}